@@ -1,9 +1,18 @@
 package com.marcinpypec.banktransactions;
 
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
-@EnableAsync
+@EnableScheduling
 public class AsyncConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool importForkJoinPool(ImportProperties properties) {
+        return new ForkJoinPool(properties.parallel().effectiveParallelism());
+    }
 }
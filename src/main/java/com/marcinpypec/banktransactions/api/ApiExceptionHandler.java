@@ -3,6 +3,10 @@ package com.marcinpypec.banktransactions.api;
 import com.marcinpypec.banktransactions.importjob.exception.ImportAlreadyExistsException;
 import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
 import com.marcinpypec.banktransactions.importjob.exception.ImportNotFoundException;
+import com.marcinpypec.banktransactions.importjob.exception.ImportRejectedException;
+import com.marcinpypec.banktransactions.stats.StatsNotReadyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -14,42 +18,62 @@ public class ApiExceptionHandler {
 
     @ExceptionHandler(ImportAlreadyExistsException.class)
     public ResponseEntity<ApiError> handleConflict(ImportAlreadyExistsException ex) {
-        return ResponseEntity.status(409)
+        return status(409)
                 .body(ApiError.of("IMPORT_ALREADY_EXISTS", ex.getMessage()));
     }
 
     @ExceptionHandler(ImportNotFoundException.class)
     public ResponseEntity<ApiError> handleNotFound(ImportNotFoundException ex) {
-        return ResponseEntity.status(404)
+        return status(404)
                 .body(ApiError.of("IMPORT_NOT_FOUND", ex.getMessage()));
     }
 
+    @ExceptionHandler(ImportRejectedException.class)
+    public ResponseEntity<ApiError> handleRejected(ImportRejectedException ex) {
+        return status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(ApiError.of("IMPORT_QUEUE_FULL", ex.getMessage()));
+    }
+
+    @ExceptionHandler(StatsNotReadyException.class)
+    public ResponseEntity<ApiError> handleStatsNotReady(StatsNotReadyException ex) {
+        return status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(ApiError.of("STATS_NOT_READY", ex.getMessage()));
+    }
+
     @ExceptionHandler(ImportFileReadException.class)
     public ResponseEntity<ApiError> handleBadRequest(ImportFileReadException ex) {
-        return ResponseEntity.badRequest()
+        return status(400)
                 .body(ApiError.of("IMPORT_FILE_INVALID", ex.getMessage()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleUnexpected(Exception ex) {
-        return ResponseEntity.status(500)
+        return status(500)
                 .body(ApiError.of("UNEXPECTED_ERROR", "Unexpected error"));
     }
 
     @ExceptionHandler(MaxUploadSizeExceededException.class)
     public ResponseEntity<ApiError> handleTooLarge(MaxUploadSizeExceededException ex) {
-        return ResponseEntity.status(413)
+        return status(413)
                 .body(ApiError.of("FILE_TOO_LARGE", "Uploaded file is too large"));
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiError> handleIllegalArgument(IllegalArgumentException ex) {
-        return ResponseEntity.badRequest().body(ApiError.of("BAD_REQUEST", ex.getMessage()));
+        return status(400).body(ApiError.of("BAD_REQUEST", ex.getMessage()));
     }
 
     @ExceptionHandler(HandlerMethodValidationException.class)
     public ResponseEntity<ApiError> handleValidation(HandlerMethodValidationException ex) {
-        return ResponseEntity.badRequest().body(ApiError.of("VALIDATION_ERROR", "Invalid request parameters"));
+        return status(400).body(ApiError.of("VALIDATION_ERROR", "Invalid request parameters"));
     }
 
+    /**
+     * Errors are always JSON, also for requests that accept only NDJSON.
+     */
+    private static ResponseEntity.BodyBuilder status(int status) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON);
+    }
 }
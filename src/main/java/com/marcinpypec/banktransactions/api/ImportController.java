@@ -4,15 +4,18 @@ import com.marcinpypec.banktransactions.importjob.dto.ImportJobResponse;
 import com.marcinpypec.banktransactions.importjob.service.ImportService;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
 
 @RestController
 @RequestMapping("/api/v1/imports")
@@ -26,9 +29,13 @@ public class ImportController {
             @RequestParam("yearMonth")
             @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "yearMonth must be yyyy-MM")
             String yearMonth,
-            @RequestPart("file") MultipartFile file
+            @RequestPart("file") MultipartFile file,
+            @RequestHeader(value = "X-Client-Id", required = false) String clientId,
+            MultipartHttpServletRequest request
     ) {
-        return ResponseEntity.accepted().body(importService.createImport(yearMonth, file));
+        HttpHeaders fileHeaders = request.getMultipartHeaders("file");
+        String contentEncoding = fileHeaders == null ? null : fileHeaders.getFirst(HttpHeaders.CONTENT_ENCODING);
+        return ResponseEntity.accepted().body(importService.createImport(yearMonth, file, contentEncoding, clientId));
     }
 
     @GetMapping("/{jobId}")
@@ -0,0 +1,36 @@
+package com.marcinpypec.banktransactions.csv;
+
+import org.apache.commons.csv.CSVRecord;
+
+record CommonsCsvRow(CSVRecord record) implements CsvRow {
+
+    @Override
+    public int size() {
+        return record.size();
+    }
+
+    @Override
+    public String get(int index) {
+        return record.get(index);
+    }
+
+    @Override
+    public boolean isMapped(String column) {
+        return record.isMapped(column);
+    }
+
+    @Override
+    public String get(String column) {
+        return record.get(column);
+    }
+
+    @Override
+    public int length(int index) {
+        return record.get(index).length();
+    }
+
+    @Override
+    public char charAt(int index, int position) {
+        return record.get(index).charAt(position);
+    }
+}
@@ -0,0 +1,61 @@
+package com.marcinpypec.banktransactions.csv;
+
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+public class CommonsCsvRowReader implements CsvRowReader {
+
+    private final CSVParser parser;
+    private final Iterator<CSVRecord> records;
+    private final CountingInputStream input;
+    private CsvRow current;
+
+    public CommonsCsvRowReader(CSVParser parser) {
+        this(parser, null);
+    }
+
+    CommonsCsvRowReader(CSVParser parser, CountingInputStream input) {
+        this.parser = parser;
+        this.records = parser.iterator();
+        this.input = input;
+    }
+
+    @Override
+    public List<String> header() {
+        return parser.getHeaderNames();
+    }
+
+    @Override
+    public boolean next() {
+        if (!records.hasNext()) {
+            current = null;
+            return false;
+        }
+        current = new CommonsCsvRow(records.next());
+        return true;
+    }
+
+    @Override
+    public CsvRow row() {
+        return current;
+    }
+
+    @Override
+    public long bytesRead() {
+        return input != null ? input.count() : 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot close CSV parser", e);
+        }
+    }
+}
@@ -0,0 +1,3 @@
+package com.marcinpypec.banktransactions.csv;
+
+public record CsvChunk(int index, long start, long end) {}
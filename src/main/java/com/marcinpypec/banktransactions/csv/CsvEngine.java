@@ -0,0 +1,6 @@
+package com.marcinpypec.banktransactions.csv;
+
+public enum CsvEngine {
+    COMMONS_CSV,
+    MAPPED
+}
@@ -0,0 +1,21 @@
+package com.marcinpypec.banktransactions.csv;
+
+public interface CsvRow {
+
+    int size();
+
+    String get(int index);
+
+    boolean isMapped(String column);
+
+    String get(String column);
+
+    /**
+     * Length of the raw field content, without decoding it to a {@code String}. Together with
+     * {@link #charAt(int, int)} this lets ASCII fields (dates, amounts, codes) be parsed in place.
+     * Implementations working on bytes count UTF-8 bytes and do not collapse {@code ""} escapes.
+     */
+    int length(int index);
+
+    char charAt(int index, int position);
+}
@@ -0,0 +1,20 @@
+package com.marcinpypec.banktransactions.csv;
+
+import java.util.List;
+
+public interface CsvRowReader extends AutoCloseable {
+
+    List<String> header();
+
+    boolean next();
+
+    CsvRow row();
+
+    /**
+     * Bytes of input consumed so far. Buffered readers may run slightly ahead of the current row.
+     */
+    long bytesRead();
+
+    @Override
+    void close();
+}
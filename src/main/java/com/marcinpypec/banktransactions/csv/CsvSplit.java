@@ -0,0 +1,5 @@
+package com.marcinpypec.banktransactions.csv;
+
+import java.util.List;
+
+public record CsvSplit(List<String> header, List<CsvChunk> chunks) {}
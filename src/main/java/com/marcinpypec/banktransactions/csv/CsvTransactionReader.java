@@ -5,17 +5,47 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 @Component
 public class CsvTransactionReader {
 
-    public CSVParser openParser(byte[] fileBytes) {
+    public CsvRowReader open(Path file, CsvEngine engine) {
+        return switch (engine) {
+            case COMMONS_CSV -> {
+                CountingInputStream input = new CountingInputStream(newInputStream(file));
+                yield new CommonsCsvRowReader(openParser(input), input);
+            }
+            case MAPPED -> new MappedCsvRowReader(file);
+        };
+    }
+
+    public CsvSplit split(Path file, int maxChunks, long minChunkSize) {
+        return MappedCsvRowReader.split(file, maxChunks, minChunkSize);
+    }
+
+    public CsvRowReader open(Path file, CsvSplit split, CsvChunk chunk) {
+        return open(file, split.header(), chunk);
+    }
+
+    public CsvRowReader open(Path file, List<String> header, CsvChunk chunk) {
+        return new MappedCsvRowReader(file, header, chunk.start(), chunk.end());
+    }
+
+    public CSVParser openParser(Path file) {
+        return openParser(newInputStream(file));
+    }
+
+    public CSVParser openParser(InputStream in) {
         try {
             return CSVParser.parse(
-                    new InputStreamReader(new ByteArrayInputStream(fileBytes), StandardCharsets.UTF_8),
+                    new InputStreamReader(in, StandardCharsets.UTF_8),
                     CSVFormat.DEFAULT.builder()
                             .setHeader()
                             .setSkipHeaderRecord(true)
@@ -26,5 +56,12 @@ public class CsvTransactionReader {
             throw new ImportFileReadException("Cannot read CSV file", e);
         }
     }
-}
 
+    private InputStream newInputStream(Path file) {
+        try {
+            return Files.newInputStream(file);
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot open CSV file", e);
+        }
+    }
+}
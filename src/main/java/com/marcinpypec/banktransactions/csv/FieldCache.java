@@ -0,0 +1,57 @@
+package com.marcinpypec.banktransactions.csv;
+
+/**
+ * Small direct-mapped cache of decoded field values for low-cardinality columns such as the
+ * currency or category. A hit returns the previously decoded {@code String} without allocating;
+ * a miss decodes the field and replaces whatever occupied the slot. Only short ASCII values
+ * without quotes are cached, so comparing raw characters is the same as comparing values.
+ * Not thread-safe; each reader thread uses its own {@link TransactionRowPlan}.
+ */
+final class FieldCache {
+
+    private static final int MAX_LENGTH = 32;
+
+    private final String[] entries;
+    private final int mask;
+
+    FieldCache(int slots) {
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.entries = new String[size];
+        this.mask = size - 1;
+    }
+
+    String get(CsvRow row, int index) {
+        int length = row.length(index);
+        if (length > MAX_LENGTH) {
+            return row.get(index);
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            char c = row.charAt(index, i);
+            if (c >= 0x80 || c == '"') {
+                return row.get(index);
+            }
+            hash = 31 * hash + c;
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String cached = entries[slot];
+        if (cached != null && matches(cached, row, index, length)) {
+            return cached;
+        }
+        String value = row.get(index);
+        entries[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(String cached, CsvRow row, int index, int length) {
+        if (cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != row.charAt(index, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
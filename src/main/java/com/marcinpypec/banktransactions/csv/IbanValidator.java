@@ -0,0 +1,75 @@
+package com.marcinpypec.banktransactions.csv;
+
+/**
+ * IBAN check without regular expressions or allocation: the country code must be in the
+ * registry with the matching total length, the rest must be upper-case alphanumeric after
+ * two check digits, and the ISO 13616 mod-97 checksum must equal 1.
+ */
+final class IbanValidator {
+
+    // Total IBAN length per country, from the SWIFT IBAN registry; 0 means not an IBAN country.
+    private static final int[] LENGTHS = new int[26 * 26];
+
+    private static final long REDUCE_ABOVE = 1_000_000_000_000_000L;
+
+    static {
+        String registry = """
+                AD24 AE23 AL28 AT20 AZ28 BA20 BE16 BG22 BH22 BI27 BR29 BY28 CH21 CR22 CY28 CZ24
+                DE22 DJ27 DK18 DO28 EE20 EG29 ES24 FI18 FK18 FO18 FR27 GB22 GE22 GI23 GL18 GR27
+                GT28 HR21 HU28 IE22 IL23 IQ23 IS26 IT27 JO30 KW30 KZ20 LB28 LC32 LI21 LT20 LU20
+                LV21 LY25 MC27 MD24 ME22 MK19 MN20 MR27 MT31 MU30 NI28 NL18 NO15 OM23 PK24 PL28
+                PS29 PT25 QA29 RO24 RS22 RU33 SA24 SC31 SD18 SE24 SI19 SK24 SM27 SO23 ST25 SV28
+                TL23 TN24 TR26 UA29 VA22 VG24 XK20 YE30
+                """;
+        for (String entry : registry.split("\\s+")) {
+            if (!entry.isEmpty()) {
+                LENGTHS[country(entry.charAt(0), entry.charAt(1))] = Integer.parseInt(entry.substring(2));
+            }
+        }
+    }
+
+    private IbanValidator() {
+    }
+
+    static boolean isValid(String iban) {
+        int length = iban.length();
+        if (length < 4 || !isUpper(iban.charAt(0)) || !isUpper(iban.charAt(1))) {
+            return false;
+        }
+        if (LENGTHS[country(iban.charAt(0), iban.charAt(1))] != length) {
+            return false;
+        }
+        if (!isDigit(iban.charAt(2)) || !isDigit(iban.charAt(3))) {
+            return false;
+        }
+
+        // Digits are accumulated in a long and only reduced mod 97 when it could overflow.
+        long remainder = 0;
+        for (int i = 4; i < length + 4; i++) {
+            char c = iban.charAt(i < length ? i : i - length);
+            if (isDigit(c)) {
+                remainder = remainder * 10 + (c - '0');
+            } else if (isUpper(c)) {
+                remainder = remainder * 100 + (c - 'A' + 10);
+            } else {
+                return false;
+            }
+            if (remainder >= REDUCE_ABOVE) {
+                remainder %= 97;
+            }
+        }
+        return remainder % 97 == 1;
+    }
+
+    private static int country(char first, char second) {
+        return (first - 'A') * 26 + (second - 'A');
+    }
+
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
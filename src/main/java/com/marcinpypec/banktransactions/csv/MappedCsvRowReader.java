@@ -0,0 +1,368 @@
+package com.marcinpypec.banktransactions.csv;
+
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Byte-level CSV reader over a memory-mapped file. Fields are kept as offsets into the
+ * mapping and only decoded to a {@code String} when asked for. Records are terminated by
+ * a line feed; a quoted field may contain commas and escaped quotes but not line breaks.
+ * The current {@link CsvRow} is only valid until the next call to {@link #next()}.
+ * A reader can also be restricted to a newline-aligned byte range of the file, see
+ * {@link #split(Path, int, long)}.
+ */
+public class MappedCsvRowReader implements CsvRowReader {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long COMMAS = ONES * COMMA;
+    private static final long LFS = ONES * LF;
+    private static final long QUOTES = ONES * QUOTE;
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+    private long position;
+
+    private final SliceRow row = new SliceRow();
+    private final List<String> header;
+    private final Map<String, Integer> columns;
+
+    public MappedCsvRowReader(Path file) {
+        this(file, null, 0, Long.MAX_VALUE, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedCsvRowReader(Path file, List<String> header, long start, long end) {
+        this(file, header, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedCsvRowReader(Path file, int windowSize) {
+        this(file, null, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    MappedCsvRowReader(Path file, List<String> header, long start, long end, int windowSize) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.end = Math.min(end, channel.size());
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot open CSV file", e);
+        }
+        this.windowSize = windowSize;
+        this.start = start;
+        this.position = start;
+        try {
+            this.header = header != null ? List.copyOf(header) : readHeader();
+            this.columns = indexColumns(this.header);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public static CsvSplit split(Path file, int maxChunks, long minChunkSize) {
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            long dataStart = reader.position();
+            long dataEnd = reader.end;
+            long chunkSize = Math.max(minChunkSize, (dataEnd - dataStart + maxChunks - 1) / Math.max(1, maxChunks));
+
+            List<CsvChunk> chunks = new ArrayList<>();
+            long start = dataStart;
+            while (start < dataEnd) {
+                long stop = start + chunkSize >= dataEnd ? dataEnd : reader.nextLineStart(start + chunkSize);
+                chunks.add(new CsvChunk(chunks.size(), start, stop));
+                start = stop;
+            }
+            return new CsvSplit(reader.header(), chunks);
+        }
+    }
+
+    @Override
+    public List<String> header() {
+        return header;
+    }
+
+    @Override
+    public boolean next() {
+        return readRecord();
+    }
+
+    @Override
+    public CsvRow row() {
+        return row;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public long bytesRead() {
+        return position - start;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot close CSV file", e);
+        }
+    }
+
+    private long nextLineStart(long offset) {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        try {
+            long at = offset;
+            while (at < end) {
+                buffer.clear();
+                int read = channel.read(buffer, at);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == LF) {
+                        return Math.min(at + i + 1, end);
+                    }
+                }
+                at += read;
+            }
+            return end;
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot split CSV file", e);
+        }
+    }
+
+    private List<String> readHeader() {
+        if (!readRecord()) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(row.size);
+        for (int i = 0; i < row.size; i++) {
+            names.add(row.get(i));
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static Map<String, Integer> indexColumns(List<String> header) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (index.putIfAbsent(name, i) != null) {
+                throw new ImportFileReadException("Duplicate CSV header: " + name);
+            }
+        }
+        return index;
+    }
+
+    private boolean readRecord() {
+        while (position < end) {
+            if (window == null || position < windowStart || position >= windowStart + windowLimit) {
+                map(position);
+            }
+            int from = (int) (position - windowStart);
+            int lf = scan(from);
+
+            if (lf < 0 && windowStart + windowLimit < end) {
+                if (from == 0) {
+                    throw new ImportFileReadException("CSV record larger than " + windowSize + " bytes");
+                }
+                map(position);
+                continue;
+            }
+
+            int stop = lf < 0 ? windowLimit : lf;
+            position = windowStart + (lf < 0 ? windowLimit : lf + 1);
+
+            if (stop == from || (stop == from + 1 && window.get(from) == CR)) {
+                continue;
+            }
+            return true;
+        }
+        row.size = 0;
+        return false;
+    }
+
+    private int scan(int from) {
+        row.size = 0;
+        int fieldStart = from;
+        boolean leading = true;
+        boolean quoted = false;
+        boolean escaped = false;
+
+        for (int i = from; i < windowLimit; i++) {
+            if (!leading && !quoted) {
+                while (i + Long.BYTES <= windowLimit && !hasDelimiter(window.getLong(i))) {
+                    i += Long.BYTES;
+                }
+                if (i == windowLimit) {
+                    break;
+                }
+            }
+            byte b = window.get(i);
+            if (quoted) {
+                if (b == QUOTE) {
+                    if (i + 1 < windowLimit && window.get(i + 1) == QUOTE) {
+                        escaped = true;
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                    continue;
+                }
+                if (b != LF) {
+                    continue;
+                }
+            }
+            if (b == COMMA) {
+                row.add(fieldStart, i, escaped);
+                fieldStart = i + 1;
+                leading = true;
+                escaped = false;
+            } else if (b == LF) {
+                row.add(fieldStart, i, escaped);
+                return i;
+            } else if (leading && b == QUOTE) {
+                quoted = true;
+                leading = false;
+            } else if (leading && !isBlank(b)) {
+                leading = false;
+            }
+        }
+        row.add(fieldStart, windowLimit, escaped);
+        return -1;
+    }
+
+    private void map(long offset) {
+        try {
+            windowStart = offset;
+            windowLimit = (int) Math.min(windowSize, end - offset);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, windowLimit);
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot map CSV file", e);
+        }
+    }
+
+    private static boolean hasDelimiter(long word) {
+        return hasZeroByte(word ^ COMMAS) || hasZeroByte(word ^ LFS) || hasZeroByte(word ^ QUOTES);
+    }
+
+    private static boolean hasZeroByte(long word) {
+        return ((word - ONES) & ~word & HIGH_BITS) != 0;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private final class SliceRow implements CsvRow {
+
+        private int size;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private boolean[] escaped = new boolean[8];
+        private byte[] scratch = new byte[64];
+
+        void add(int start, int stop, boolean hasEscapes) {
+            while (start < stop && isBlank(window.get(start))) {
+                start++;
+            }
+            while (stop > start && isBlank(window.get(stop - 1))) {
+                stop--;
+            }
+            if (stop - start >= 2 && window.get(start) == QUOTE && window.get(stop - 1) == QUOTE) {
+                start++;
+                stop--;
+                while (start < stop && isBlank(window.get(start))) {
+                    start++;
+                }
+                while (stop > start && isBlank(window.get(stop - 1))) {
+                    stop--;
+                }
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                escaped = Arrays.copyOf(escaped, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = stop;
+            escaped[size] = hasEscapes;
+            size++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            int length = ends[index] - starts[index];
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            window.get(starts[index], scratch, 0, length);
+            String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            return escaped[index] ? value.replace("\"\"", "\"") : value;
+        }
+
+        @Override
+        public int length(int index) {
+            return ends[index] - starts[index];
+        }
+
+        @Override
+        public char charAt(int index, int position) {
+            return (char) (window.get(starts[index] + position) & 0xFF);
+        }
+
+        @Override
+        public boolean isMapped(String column) {
+            return columns.containsKey(column);
+        }
+
+        @Override
+        public String get(String column) {
+            Integer index = columns.get(column);
+            if (index == null) {
+                throw new IllegalArgumentException("Mapping for " + column + " not found, expected one of " + header);
+            }
+            if (index >= size) {
+                throw new IllegalArgumentException(
+                        "Index for header '" + column + "' is " + index + " but row only has " + size + " values");
+            }
+            return get(index);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.marcinpypec.banktransactions.csv;
+
+public enum RejectReason {
+    MISSING_COLUMN,
+    SHORT_ROW,
+    IBAN_INVALID,
+    DATE_INVALID,
+    DATE_OUT_OF_MONTH,
+    CURRENCY_INVALID,
+    CATEGORY_BLANK,
+    AMOUNT_INVALID
+}
@@ -1,36 +1,30 @@
 package com.marcinpypec.banktransactions.csv;
 
-import org.apache.commons.csv.CSVRecord;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
 
 @Component
 public class TransactionRowMapper {
 
-    public TransactionDraft map(CSVRecord r) {
-        String iban     = get(r, "IBAN");
-        String dateStr  = get(r, "date");
-        String currency = get(r, "currency");
-        String category = get(r, "category");
-        String amount   = get(r, "amount");
-
-        return new TransactionDraft(
-                iban,
-                LocalDate.parse(dateStr),
-                currency,
-                category,
-                new BigDecimal(amount)
-        );
+    public TransactionRowPlan compile(List<String> header) {
+        String missing = null;
+        int[] indexes = new int[5];
+        String[] keys = {"IBAN", "date", "currency", "category", "amount"};
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = indexOf(header, keys[i]);
+            if (indexes[i] < 0 && missing == null) {
+                missing = keys[i];
+            }
+        }
+        return new TransactionRowPlan(indexes[0], indexes[1], indexes[2], indexes[3], indexes[4], missing);
     }
 
-    private String get(CSVRecord r, String key) {
-        if (r.isMapped(key)) return r.get(key);
-        String lower = key.toLowerCase();
-        if (r.isMapped(lower)) return r.get(lower);
-        String upper = key.toUpperCase();
-        if (r.isMapped(upper)) return r.get(upper);
-        throw new IllegalArgumentException("Missing column: " + key);
+    private int indexOf(List<String> header, String key) {
+        int index = header.indexOf(key);
+        if (index < 0) index = header.indexOf(key.toLowerCase(Locale.ROOT));
+        if (index < 0) index = header.indexOf(key.toUpperCase(Locale.ROOT));
+        return index;
     }
 }
@@ -0,0 +1,199 @@
+package com.marcinpypec.banktransactions.csv;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+
+/**
+ * Column layout of one CSV file, resolved once from its header by
+ * {@link TransactionRowMapper#compile(java.util.List)}. Dates in {@code yyyy-MM-dd} form and
+ * plain decimal amounts of up to 18 digits are parsed straight from the field characters;
+ * longer or exponent-form amounts fall back to {@link BigDecimal#BigDecimal(String)}.
+ * Nothing here throws for bad input: a row that cannot be mapped yields {@code null} (see
+ * {@link #rejectReason(CsvRow)}), and an unparsable date or amount is left {@code null} in the
+ * draft for the validator to reject.
+ * Holds per-file caches, so a plan must not be shared between reader threads.
+ */
+public final class TransactionRowPlan {
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final int iban;
+    private final int date;
+    private final int currency;
+    private final int category;
+    private final int amount;
+    private final int width;
+    private final String missingColumn;
+
+    private final FieldCache currencies = new FieldCache(64);
+    private final FieldCache categories = new FieldCache(256);
+    private final LocalDate[] days = new LocalDate[32];
+    private int daysMonth = -1;
+
+    TransactionRowPlan(int iban, int date, int currency, int category, int amount, String missingColumn) {
+        this.iban = iban;
+        this.date = date;
+        this.currency = currency;
+        this.category = category;
+        this.amount = amount;
+        this.width = Math.max(Math.max(iban, date), Math.max(Math.max(currency, category), amount)) + 1;
+        this.missingColumn = missingColumn;
+    }
+
+    public TransactionDraft map(CsvRow row) {
+        if (rejectReason(row) != null) {
+            return null;
+        }
+        return new TransactionDraft(
+                row.get(iban),
+                parseDate(row, date),
+                currencies.get(row, currency),
+                categories.get(row, category),
+                parseAmount(row, amount)
+        );
+    }
+
+    public RejectReason rejectReason(CsvRow row) {
+        if (missingColumn != null) {
+            return RejectReason.MISSING_COLUMN;
+        }
+        if (row.size() < width) {
+            return RejectReason.SHORT_ROW;
+        }
+        return null;
+    }
+
+    private LocalDate parseDate(CsvRow row, int index) {
+        if (row.length(index) != 10 || row.charAt(index, 4) != '-' || row.charAt(index, 7) != '-') {
+            return null;
+        }
+        int year = digits(row, index, 0, 4);
+        int month = digits(row, index, 5, 2);
+        int day = digits(row, index, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        int yearMonth = year * 100 + month;
+        if (yearMonth != daysMonth) {
+            Arrays.fill(days, null);
+            daysMonth = yearMonth;
+        }
+        LocalDate cached = days[day];
+        if (cached == null) {
+            cached = LocalDate.of(year, month, day);
+            days[day] = cached;
+        }
+        return cached;
+    }
+
+    private static BigDecimal parseAmount(CsvRow row, int index) {
+        int length = row.length(index);
+        int position = 0;
+        boolean negative = false;
+        if (length > 0) {
+            char sign = row.charAt(index, 0);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                position = 1;
+            }
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; position < length; position++) {
+            char c = row.charAt(index, position);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return parseLongAmount(row, index);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                return parseLongAmount(row, index);
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private static BigDecimal parseLongAmount(CsvRow row, int index) {
+        if (!isDecimal(row, index)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(row.get(index));
+        } catch (NumberFormatException e) {
+            // only reachable for exponents beyond the int range
+            return null;
+        }
+    }
+
+    // [+-]digits[.digits][(e|E)[+-]digits], with at least one mantissa digit.
+    private static boolean isDecimal(CsvRow row, int index) {
+        int length = row.length(index);
+        int position = 0;
+        if (position < length && (row.charAt(index, position) == '-' || row.charAt(index, position) == '+')) {
+            position++;
+        }
+        int mantissaDigits = 0;
+        boolean point = false;
+        for (; position < length; position++) {
+            char c = row.charAt(index, position);
+            if (c >= '0' && c <= '9') {
+                mantissaDigits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (mantissaDigits == 0) {
+            return false;
+        }
+        if (position == length) {
+            return true;
+        }
+        char e = row.charAt(index, position++);
+        if (e != 'e' && e != 'E') {
+            return false;
+        }
+        if (position < length && (row.charAt(index, position) == '-' || row.charAt(index, position) == '+')) {
+            position++;
+        }
+        if (position == length) {
+            return false;
+        }
+        for (; position < length; position++) {
+            char c = row.charAt(index, position);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(CsvRow row, int index, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = row.charAt(index, i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
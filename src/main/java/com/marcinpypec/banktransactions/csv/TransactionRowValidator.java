@@ -2,37 +2,65 @@ package com.marcinpypec.banktransactions.csv;
 
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Currency;
+import java.util.Optional;
 
 @Component
 public class TransactionRowValidator {
 
-    public void validate(TransactionDraft tx, YearMonth expectedMonth) {
-        requireNotBlank(tx.iban(), "IBAN blank");
-        if (!tx.iban().matches("^[A-Z]{2}[0-9A-Z]{13,32}$")) {
-            throw new RowValidationException("IBAN invalid");
+    // ISO 4217 codes indexed by their three letters.
+    private static final boolean[] CURRENCIES = new boolean[26 * 26 * 26];
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            String code = currency.getCurrencyCode();
+            if (isCurrencyShape(code)) {
+                CURRENCIES[currencyIndex(code)] = true;
+            }
         }
+    }
 
-        if (tx.transactionDate() == null) {
-            throw new RowValidationException("date missing");
+    public Optional<RejectReason> validate(TransactionDraft tx, YearMonth expectedMonth) {
+        if (tx.iban() == null || !IbanValidator.isValid(tx.iban())) {
+            return Optional.of(RejectReason.IBAN_INVALID);
         }
-        if (!YearMonth.from(tx.transactionDate()).equals(expectedMonth)) {
-            throw new RowValidationException("date not in yearMonth");
+
+        LocalDate date = tx.transactionDate();
+        if (date == null) {
+            return Optional.of(RejectReason.DATE_INVALID);
+        }
+        if (date.getYear() != expectedMonth.getYear() || date.getMonthValue() != expectedMonth.getMonthValue()) {
+            return Optional.of(RejectReason.DATE_OUT_OF_MONTH);
         }
 
-        requireMatches(tx.currency(), "^[A-Z]{3}$", "currency invalid");
-        requireNotBlank(tx.category(), "category blank");
+        if (!isCurrency(tx.currency())) {
+            return Optional.of(RejectReason.CURRENCY_INVALID);
+        }
+        if (tx.category() == null || tx.category().isBlank()) {
+            return Optional.of(RejectReason.CATEGORY_BLANK);
+        }
 
         if (tx.amount() == null) {
-            throw new RowValidationException("amount missing");
+            return Optional.of(RejectReason.AMOUNT_INVALID);
         }
+        return Optional.empty();
+    }
+
+    private static boolean isCurrency(String code) {
+        return code != null && isCurrencyShape(code) && CURRENCIES[currencyIndex(code)];
+    }
+
+    private static boolean isCurrencyShape(String code) {
+        return code.length() == 3 && isUpper(code.charAt(0)) && isUpper(code.charAt(1)) && isUpper(code.charAt(2));
     }
 
-    private void requireNotBlank(String v, String msg) {
-        if (v == null || v.isBlank()) throw new RowValidationException(msg);
+    private static int currencyIndex(String code) {
+        return ((code.charAt(0) - 'A') * 26 + (code.charAt(1) - 'A')) * 26 + (code.charAt(2) - 'A');
     }
 
-    private void requireMatches(String v, String regex, String msg) {
-        if (v == null || !v.matches(regex)) throw new RowValidationException(msg);
+    private static boolean isUpper(char c) {
+        return c >= 'A' && c <= 'Z';
     }
 }
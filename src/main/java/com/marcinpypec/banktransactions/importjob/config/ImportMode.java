@@ -0,0 +1,6 @@
+package com.marcinpypec.banktransactions.importjob.config;
+
+public enum ImportMode {
+    SEQUENTIAL,
+    PARALLEL
+}
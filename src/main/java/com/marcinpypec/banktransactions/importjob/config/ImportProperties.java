@@ -0,0 +1,72 @@
+package com.marcinpypec.banktransactions.importjob.config;
+
+import com.marcinpypec.banktransactions.csv.CsvEngine;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("app.import")
+public record ImportProperties(
+        Path stagingDir,
+        DataSize maxStagedSize,
+        CsvEngine csvEngine,
+        ImportMode mode,
+        Parallel parallel,
+        Pipeline pipeline,
+        Batching batching,
+        Scheduler scheduler,
+        WriteMode writeMode,
+        WriteRetry writeRetry,
+        Duration progressInterval,
+        Lease lease
+) {
+
+    /**
+     * Unfinished imports are owned by the instance that took them, for {@code duration} after
+     * each renewal. {@code instanceId} should stay the same across restarts of an instance (and
+     * its staging directory); when blank, an instance cannot tell its own imports after a restart
+     * and takes them over only once their lease ran out.
+     */
+    public record Lease(
+            String instanceId,
+            Duration duration,
+            Duration renewInterval
+    ) {}
+
+    public record Parallel(
+            int parallelism,
+            DataSize minChunkSize
+    ) {
+        public int effectiveParallelism() {
+            return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    public record Pipeline(
+            int writers,
+            int queueCapacity
+    ) {}
+
+    public record Scheduler(
+            int concurrency,
+            boolean virtualThreads,
+            int queueCapacity,
+            Duration retryAfter
+    ) {}
+
+    public record WriteRetry(
+            int maxAttempts,
+            Duration initialBackoff,
+            Duration maxBackoff
+    ) {}
+
+    public record Batching(
+            int initialSize,
+            int minSize,
+            int maxSize,
+            DataSize maxBatchBytes,
+            Duration maxLatency
+    ) {}
+}
@@ -0,0 +1,6 @@
+package com.marcinpypec.banktransactions.importjob.config;
+
+public enum WriteMode {
+    REPOSITORY,
+    BULK
+}
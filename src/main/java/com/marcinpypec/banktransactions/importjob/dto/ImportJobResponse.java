@@ -1,19 +1,27 @@
 package com.marcinpypec.banktransactions.importjob.dto;
 
+import com.marcinpypec.banktransactions.csv.RejectReason;
+import com.marcinpypec.banktransactions.importjob.model.ImportProgress;
 import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import lombok.Builder;
 
 import java.time.Instant;
+import java.util.Map;
 
 @Builder
 public record ImportJobResponse(
         String id,
         String yearMonth,
         String fileName,
+        String fileSha256,
         ImportStatus status,
         int totalRows,
         int importedRows,
         int invalidRows,
+        Map<RejectReason, Integer> rejections,
+        ImportProgress progress,
+        int batchSize,
+        double writeRowsPerSecond,
         Instant createdAt,
         Instant startedAt,
         Instant finishedAt,
@@ -2,5 +2,5 @@ package com.marcinpypec.banktransactions.importjob.exception;
 
 public class ImportAlreadyExistsException extends RuntimeException {
     public ImportAlreadyExistsException(String yearMonth) {
-        super("Import for yearMonth already exists: " + yearMonth);
+        super("Identical file already imported for yearMonth: " + yearMonth);
     }}
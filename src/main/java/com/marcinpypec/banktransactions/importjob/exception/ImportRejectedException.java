@@ -0,0 +1,16 @@
+package com.marcinpypec.banktransactions.importjob.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class ImportRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ImportRejectedException(Duration retryAfter) {
+        super("Import queue is full, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
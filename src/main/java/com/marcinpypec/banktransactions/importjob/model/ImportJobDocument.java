@@ -1,36 +1,60 @@
 package com.marcinpypec.banktransactions.importjob.model;
 
+import com.marcinpypec.banktransactions.csv.RejectReason;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * {@code ux_import_file} lets a month hold a file once among its jobs that did not fail, also
+ * when identical uploads arrive at the same time. Jobs only get {@code fileSha256} once staged.
+ * {@code ix_import_lease} finds the unfinished jobs whose lease ran out.
+ */
 @Getter
 @Setter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Document("import_jobs")
+@CompoundIndex(name = "ux_import_file", def = "{'yearMonth': 1, 'fileSha256': 1}", unique = true,
+        partialFilter = "{'fileSha256': {'$type': 'string'}, 'status': {'$in': ['RECEIVED', 'PROCESSING', 'COMPLETED']}}")
+@CompoundIndex(name = "ix_import_lease", def = "{'status': 1, 'leaseExpiresAt': 1}")
 public class ImportJobDocument {
 
     @Id
     private String id;
     private String yearMonth;
     private String fileName;
+    private String fileSha256;
     private ImportStatus status;
 
     private int totalRows;
     private int importedRows;
     private int invalidRows;
+    private Map<RejectReason, Integer> rejections;
+
+    private ImportProgress progress;
+    private List<ImportSegment> segments;
+
+    private int batchSize;
+    private double writeRowsPerSecond;
 
     private Instant createdAt;
     private Instant startedAt;
     private Instant finishedAt;
 
     private String errorMessage;
+
+    private String ownerId;
+    private String ownerRunId;
+    private Instant leaseExpiresAt;
 }
@@ -0,0 +1,12 @@
+package com.marcinpypec.banktransactions.importjob.model;
+
+import java.time.Instant;
+
+public record ImportProgress(
+        long processedRows,
+        long processedBytes,
+        long totalBytes,
+        double rowsPerSecond,
+        Long etaSeconds,
+        Instant updatedAt
+) {}
@@ -1,9 +1,21 @@
 package com.marcinpypec.banktransactions.importjob.model;
 
-public record ImportReport(int totalRows, int importedRows, int invalidRows) {
-    public static ImportReport empty() { return new ImportReport(0,0,0); }
+import com.marcinpypec.banktransactions.csv.RejectReason;
 
-    public ImportReport incTotal()    { return new ImportReport(totalRows + 1, importedRows, invalidRows); }
-    public ImportReport incImported() { return new ImportReport(totalRows, importedRows + 1, invalidRows); }
-    public ImportReport incInvalid()  { return new ImportReport(totalRows, importedRows, invalidRows + 1); }
+import java.util.EnumMap;
+import java.util.Map;
+
+public record ImportReport(int totalRows, int importedRows, int invalidRows, Map<RejectReason, Integer> rejections) {
+    public static ImportReport empty() { return new ImportReport(0, 0, 0, Map.of()); }
+
+    public ImportReport plus(ImportReport other) {
+        Map<RejectReason, Integer> merged = new EnumMap<>(RejectReason.class);
+        merged.putAll(rejections);
+        other.rejections.forEach((reason, count) -> merged.merge(reason, count, Integer::sum));
+        return new ImportReport(
+                totalRows + other.totalRows,
+                importedRows + other.importedRows,
+                invalidRows + other.invalidRows,
+                merged);
+    }
 }
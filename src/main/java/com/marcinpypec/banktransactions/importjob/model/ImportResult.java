@@ -0,0 +1,14 @@
+package com.marcinpypec.banktransactions.importjob.model;
+
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+
+/**
+ * {@code stats} holds the stats of the imported rows, or null if they were not collected in full.
+ */
+public record ImportResult(
+        ImportReport report,
+        ImportProgress progress,
+        int batchSize,
+        double writeRowsPerSecond,
+        StatsAccumulator stats
+) {}
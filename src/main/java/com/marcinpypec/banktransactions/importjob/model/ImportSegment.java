@@ -0,0 +1,24 @@
+package com.marcinpypec.banktransactions.importjob.model;
+
+/**
+ * Checkpoint of one byte range of a staged file. {@code offset} is the end of the last row
+ * whose batch is known to be written, {@code batchSeq} the sequence number of that batch and
+ * {@code report} the row counts up to it.
+ */
+public record ImportSegment(
+        int index,
+        long start,
+        long end,
+        long offset,
+        long batchSeq,
+        ImportReport report,
+        boolean complete
+) {
+    public static ImportSegment planned(int index, long start, long end) {
+        return new ImportSegment(index, start, end, start, 0, ImportReport.empty(), false);
+    }
+
+    public ImportSegment advance(long offset, ImportReport report, boolean complete) {
+        return new ImportSegment(index, start, end, offset, batchSeq + 1, report, complete);
+    }
+}
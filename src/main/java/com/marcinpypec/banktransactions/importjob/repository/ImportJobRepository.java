@@ -1,8 +1,19 @@
 package com.marcinpypec.banktransactions.importjob.repository;
 
 import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface ImportJobRepository extends MongoRepository<ImportJobDocument, String> {
-    boolean existsByYearMonth(String yearMonth);
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImportJobRepository extends MongoRepository<ImportJobDocument, String>, ImportJobRepositoryCustom {
+    List<ImportJobDocument> findByStatusIn(Collection<ImportStatus> statuses);
+
+    List<ImportJobDocument> findByStatusInAndLeaseExpiresAtBefore(Collection<ImportStatus> statuses, Instant now);
+
+    List<ImportJobDocument> findByYearMonthAndStatus(String yearMonth, ImportStatus status);
+
+    boolean existsByIdAndOwnerRunId(String id, String ownerRunId);
 }
@@ -0,0 +1,24 @@
+package com.marcinpypec.banktransactions.importjob.repository;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportProgress;
+import com.marcinpypec.banktransactions.importjob.model.ImportSegment;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ImportJobRepositoryCustom {
+
+    void updateProgress(String jobId, ImportProgress progress);
+
+    void saveSegments(String jobId, List<ImportSegment> segments);
+
+    void updateSegment(String jobId, ImportSegment segment);
+
+    /**
+     * Takes over an unfinished job that has no owner, whose lease ran out or that was owned by an
+     * earlier run of {@code ownerId}.
+     */
+    boolean claim(String jobId, String ownerId, String ownerRunId, Instant now, Instant leaseExpiresAt);
+
+    void renewLeases(String ownerRunId, Instant leaseExpiresAt);
+}
@@ -0,0 +1,68 @@
+package com.marcinpypec.banktransactions.importjob.repository;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.model.ImportProgress;
+import com.marcinpypec.banktransactions.importjob.model.ImportSegment;
+import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@RequiredArgsConstructor
+class ImportJobRepositoryCustomImpl implements ImportJobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void updateProgress(String jobId, ImportProgress progress) {
+        mongoTemplate.updateFirst(processing(jobId), new Update().set("progress", progress), ImportJobDocument.class);
+    }
+
+    @Override
+    public void saveSegments(String jobId, List<ImportSegment> segments) {
+        mongoTemplate.updateFirst(processing(jobId), new Update().set("segments", segments), ImportJobDocument.class);
+    }
+
+    @Override
+    public void updateSegment(String jobId, ImportSegment segment) {
+        mongoTemplate.updateFirst(processing(jobId),
+                new Update().set("segments." + segment.index(), segment),
+                ImportJobDocument.class);
+    }
+
+    @Override
+    public boolean claim(String jobId, String ownerId, String ownerRunId, Instant now, Instant leaseExpiresAt) {
+        return mongoTemplate.updateFirst(
+                query(unfinished().and("_id").is(jobId).orOperator(
+                        where("leaseExpiresAt").exists(false),
+                        where("leaseExpiresAt").lt(now),
+                        where("ownerId").is(ownerId).and("ownerRunId").ne(ownerRunId))),
+                new Update().set("ownerId", ownerId)
+                        .set("ownerRunId", ownerRunId)
+                        .set("leaseExpiresAt", leaseExpiresAt),
+                ImportJobDocument.class
+        ).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void renewLeases(String ownerRunId, Instant leaseExpiresAt) {
+        mongoTemplate.updateMulti(query(unfinished().and("ownerRunId").is(ownerRunId)),
+                new Update().set("leaseExpiresAt", leaseExpiresAt), ImportJobDocument.class);
+    }
+
+    private static Criteria unfinished() {
+        return where("status").in(ImportStatus.RECEIVED, ImportStatus.PROCESSING);
+    }
+
+    private static Query processing(String jobId) {
+        return query(where("_id").is(jobId).and("status").is(ImportStatus.PROCESSING));
+    }
+}
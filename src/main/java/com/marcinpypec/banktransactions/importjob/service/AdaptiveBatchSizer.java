@@ -0,0 +1,149 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks the number of documents per insert batch for one import.
+ * <p>
+ * Parsing threads ask {@link #shouldFlush} whether the batch they are filling is done; writers
+ * report every write through {@link #recordWrite}. Every {@value #WINDOW} writes the observed
+ * throughput is compared with the previous window and the size keeps moving in the same
+ * direction while it improves, or turns around when it gets worse. A write slower than
+ * {@code maxLatency}, or much slower than the recent average, halves the size straight away.
+ * Independently of the count, a batch is flushed once its estimated BSON size reaches
+ * {@code maxBatchBytes}, keeping each insert inside a single wire message.
+ */
+@Slf4j
+class AdaptiveBatchSizer {
+
+    static final int WINDOW = 8;
+
+    private static final double GROW = 1.25;
+    private static final double SHRINK = 0.8;
+    private static final double TOLERANCE = 0.05;
+    private static final double SPIKE_FACTOR = 3.0;
+    private static final double EWMA_ALPHA = 0.2;
+
+    // BSON framing, field names, _id, date, Decimal128 and the job id, without the variable strings.
+    private static final int FIXED_DOCUMENT_BYTES = 180;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxBatchBytes;
+    private final long maxLatencyNanos;
+    private final long startedAt = System.nanoTime();
+
+    private volatile int batchSize;
+
+    private boolean growing = true;
+    private double previousThroughput;
+    private double latencyEwma;
+    private int windowWrites;
+    private long windowDocs;
+    private long windowNanos;
+    private long totalDocs;
+    private long lastWriteAt;
+    private long lastShrinkAt = Long.MIN_VALUE;
+
+    AdaptiveBatchSizer(ImportProperties.Batching batching) {
+        this.minSize = Math.max(1, batching.minSize());
+        this.maxSize = Math.max(minSize, batching.maxSize());
+        this.maxBatchBytes = batching.maxBatchBytes().toBytes();
+        this.maxLatencyNanos = batching.maxLatency().toNanos();
+        this.batchSize = clamp(batching.initialSize());
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    boolean shouldFlush(int docs, long bytes) {
+        if (bytes >= maxBatchBytes) {
+            synchronized (this) {
+                batchSize = clamp(Math.min(batchSize, docs));
+            }
+            return true;
+        }
+        return docs >= batchSize;
+    }
+
+    synchronized void recordWrite(int docs, long nanos) {
+        if (docs == 0) {
+            return;
+        }
+        totalDocs += docs;
+        lastWriteAt = System.nanoTime();
+        // Writers running alongside each other see the same slowdown; only a write that started
+        // after the last shrink may shrink again.
+        boolean sinceLastShrink = lastWriteAt - nanos > lastShrinkAt;
+
+        boolean spike = sinceLastShrink && (nanos > maxLatencyNanos
+                || (latencyEwma > 0 && nanos > latencyEwma * SPIKE_FACTOR));
+        latencyEwma = latencyEwma == 0 ? nanos : latencyEwma + EWMA_ALPHA * (nanos - latencyEwma);
+        if (spike) {
+            batchSize = clamp(batchSize / 2);
+            lastShrinkAt = lastWriteAt;
+            log.debug("Write latency spike: {}ms for {} rows, batch size now {}",
+                    TimeUnit.NANOSECONDS.toMillis(nanos), docs, batchSize);
+            growing = false;
+            resetWindow();
+            previousThroughput = 0;
+            return;
+        }
+
+        windowWrites++;
+        windowDocs += docs;
+        windowNanos += nanos;
+        if (windowWrites < WINDOW) {
+            return;
+        }
+
+        double throughput = (double) windowDocs / windowNanos;
+        if (previousThroughput > 0) {
+            if (throughput < previousThroughput * (1 - TOLERANCE)) {
+                growing = !growing;
+            } else if (throughput <= previousThroughput * (1 + TOLERANCE)) {
+                previousThroughput = throughput;
+                resetWindow();
+                return;
+            }
+        }
+        batchSize = clamp((int) Math.round(batchSize * (growing ? GROW : SHRINK)));
+        previousThroughput = throughput;
+        resetWindow();
+    }
+
+    synchronized double rowsPerSecond() {
+        long elapsed = lastWriteAt - startedAt;
+        if (totalDocs == 0 || elapsed <= 0) {
+            return 0;
+        }
+        return totalDocs * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    static long estimateBytes(TransactionDocument doc) {
+        return FIXED_DOCUMENT_BYTES
+                + length(doc.getIban())
+                + length(doc.getCurrency())
+                + length(doc.getCategory())
+                + length(doc.getYearMonth());
+    }
+
+    private void resetWindow() {
+        windowWrites = 0;
+        windowDocs = 0;
+        windowNanos = 0;
+    }
+
+    private int clamp(int size) {
+        return Math.clamp(size, minSize, maxSize);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,20 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+
+import java.util.List;
+
+public interface BatchSink extends AutoCloseable {
+
+    /**
+     * Writes the batch, possibly on another thread, and runs {@code onWritten} once it is stored.
+     */
+    void accept(List<TransactionDocument> batch, Runnable onWritten);
+
+    BatchWriteResult finish();
+
+    @Override
+    default void close() {
+    }
+}
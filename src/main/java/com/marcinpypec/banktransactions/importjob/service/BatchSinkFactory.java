@@ -0,0 +1,63 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.config.WriteMode;
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionBatchWriter;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+@Component
+public class BatchSinkFactory {
+
+    private final TransactionBatchWriter batchWriter;
+    private final ImportProperties properties;
+    private final Set<PipelinedBatchSink> running = ConcurrentHashMap.newKeySet();
+    private final Timer parseWaitTimer;
+    private final Timer writeWaitTimer;
+    private final Counter writeRetries;
+
+    public BatchSinkFactory(TransactionBatchWriter batchWriter, ImportProperties properties, MeterRegistry meterRegistry) {
+        this.batchWriter = batchWriter;
+        this.properties = properties;
+
+        Gauge.builder("import.pipeline.queue.depth", running,
+                        sinks -> sinks.stream().mapToInt(PipelinedBatchSink::queueDepth).sum())
+                .description("Batches parsed and waiting for a writer, across running imports")
+                .register(meterRegistry);
+        this.parseWaitTimer = Timer.builder("import.pipeline.wait")
+                .tag("stage", "parse")
+                .description("Time the parsing stage spent blocked on a full write queue")
+                .register(meterRegistry);
+        this.writeWaitTimer = Timer.builder("import.pipeline.wait")
+                .tag("stage", "write")
+                .description("Time writers spent idle waiting for a parsed batch")
+                .register(meterRegistry);
+        this.writeRetries = Counter.builder("import.write.retries")
+                .description("Batch writes repeated after a transient Mongo failure")
+                .register(meterRegistry);
+    }
+
+    BatchSink open(String jobId, AdaptiveBatchSizer sizer) {
+        Function<List<TransactionDocument>, BatchWriteResult> writer = new RetryingBatchWriter(
+                properties.writeMode() == WriteMode.BULK ? batchWriter::insertBatch : batchWriter::saveBatch,
+                properties.writeRetry(), writeRetries);
+        ImportProperties.Pipeline pipeline = properties.pipeline();
+        if (pipeline.writers() <= 0) {
+            return new DirectBatchSink(writer, sizer);
+        }
+        PipelinedBatchSink sink = new PipelinedBatchSink(jobId, writer, sizer, pipeline.writers(),
+                pipeline.queueCapacity(), parseWaitTimer, writeWaitTimer, running::remove);
+        running.add(sink);
+        return sink;
+    }
+}
@@ -0,0 +1,40 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+class DirectBatchSink implements BatchSink {
+
+    private final Function<List<TransactionDocument>, BatchWriteResult> writer;
+    private final AdaptiveBatchSizer sizer;
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder alreadyWritten = new LongAdder();
+
+    DirectBatchSink(Function<List<TransactionDocument>, BatchWriteResult> writer, AdaptiveBatchSizer sizer) {
+        this.writer = writer;
+        this.sizer = sizer;
+    }
+
+    @Override
+    public void accept(List<TransactionDocument> batch, Runnable onWritten) {
+        if (batch.isEmpty()) {
+            onWritten.run();
+            return;
+        }
+        long start = System.nanoTime();
+        BatchWriteResult result = writer.apply(batch);
+        sizer.recordWrite(batch.size(), System.nanoTime() - start);
+        inserted.add(result.inserted());
+        alreadyWritten.add(result.alreadyWritten());
+        onWritten.run();
+    }
+
+    @Override
+    public BatchWriteResult finish() {
+        return new BatchWriteResult(inserted.sum(), alreadyWritten.sum());
+    }
+}
@@ -0,0 +1,83 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue that hands out tasks round-robin across keys, so one client (or month) queuing
+ * many uploads cannot starve the others. Within a key tasks keep their submission order.
+ */
+class FairImportQueue {
+
+    private final int capacity;
+    private final Map<String, Queue<Runnable>> byKey = new HashMap<>();
+    private final Queue<String> rotation = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int size;
+
+    FairImportQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    boolean offer(String key, Runnable task) {
+        lock.lock();
+        try {
+            if (size >= capacity) {
+                return false;
+            }
+            Queue<Runnable> tasks = byKey.computeIfAbsent(key, k -> new ArrayDeque<>());
+            if (tasks.isEmpty()) {
+                rotation.add(key);
+            }
+            tasks.add(task);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            String key = rotation.remove();
+            Queue<Runnable> tasks = byKey.get(key);
+            Runnable task = tasks.remove();
+            if (tasks.isEmpty()) {
+                byKey.remove(key);
+            } else {
+                rotation.add(key);
+            }
+            size--;
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isFull() {
+        return size() >= capacity;
+    }
+}
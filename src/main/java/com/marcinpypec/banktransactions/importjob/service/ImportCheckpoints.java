@@ -0,0 +1,78 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportReport;
+import com.marcinpypec.banktransactions.importjob.model.ImportSegment;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks which batches of each segment have been written and stores the segment checkpoint
+ * on the job. Writers may finish batches out of order, so a checkpoint only moves forward
+ * once every earlier batch of the same segment is written too.
+ */
+@Slf4j
+class ImportCheckpoints {
+
+    private final String jobId;
+    private final ImportJobRepository importJobRepository;
+    private final Watermark[] watermarks;
+
+    ImportCheckpoints(String jobId, List<ImportSegment> segments, ImportJobRepository importJobRepository) {
+        this.jobId = jobId;
+        this.importJobRepository = importJobRepository;
+        this.watermarks = segments.stream().map(Watermark::new).toArray(Watermark[]::new);
+    }
+
+    List<ImportSegment> segments() {
+        return Arrays.stream(watermarks).map(Watermark::current).toList();
+    }
+
+    ImportReport report() {
+        return segments().stream().map(ImportSegment::report).reduce(ImportReport.empty(), ImportReport::plus);
+    }
+
+    void written(ImportSegment checkpoint) {
+        Watermark watermark = watermarks[checkpoint.index()];
+        synchronized (watermark) {
+            watermark.pending.put(checkpoint.batchSeq(), checkpoint);
+            ImportSegment next;
+            ImportSegment advanced = null;
+            while ((next = watermark.pending.remove(watermark.current.batchSeq() + 1)) != null) {
+                watermark.current = next;
+                advanced = next;
+            }
+            if (advanced != null) {
+                save(advanced);
+            }
+        }
+    }
+
+    private void save(ImportSegment checkpoint) {
+        try {
+            importJobRepository.updateSegment(jobId, checkpoint);
+        } catch (RuntimeException e) {
+            log.warn("Cannot save import checkpoint: jobId={}, segment={}", jobId, checkpoint.index(), e);
+        }
+    }
+
+    private static final class Watermark {
+
+        private final Map<Long, ImportSegment> pending = new HashMap<>();
+        private ImportSegment current;
+
+        private Watermark(ImportSegment current) {
+            this.current = current;
+        }
+
+        private ImportSegment current() {
+            synchronized (this) {
+                return current;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which instance works on an unfinished import. A job records the instance and the run of it
+ * that took it, with a lease this run renews while it is alive. Only the owner's next run, or any
+ * instance once the lease ran out, may pick the job up again, so imports of another live instance
+ * are never resumed or failed. Leases are renewed on a thread of their own, so slow scheduled
+ * tasks cannot let them run out.
+ */
+@Slf4j
+@Component
+public class ImportLeases {
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportProperties.Lease properties;
+    private final String runId = UUID.randomUUID().toString();
+    private final String ownerId;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("import-lease").factory());
+
+    public ImportLeases(ImportJobRepository importJobRepository, ImportProperties importProperties) {
+        this.importJobRepository = importJobRepository;
+        this.properties = importProperties.lease();
+        this.ownerId = properties.instanceId() == null || properties.instanceId().isBlank()
+                ? runId
+                : properties.instanceId();
+    }
+
+    @PostConstruct
+    void start() {
+        long interval = properties.renewInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Makes this run the owner of a job that is about to be saved for the first time.
+     */
+    public void assign(ImportJobDocument job) {
+        job.setOwnerId(ownerId);
+        job.setOwnerRunId(runId);
+        job.setLeaseExpiresAt(leaseExpiry());
+    }
+
+    /**
+     * Takes over a job left unfinished by an earlier run of this instance or by an instance whose
+     * lease ran out; false when it is still owned by someone else.
+     */
+    public boolean claim(ImportJobDocument job) {
+        Instant now = Instant.now();
+        Instant leaseExpiresAt = now.plus(properties.duration());
+        if (!importJobRepository.claim(job.getId(), ownerId, runId, now, leaseExpiresAt)) {
+            return false;
+        }
+        job.setOwnerId(ownerId);
+        job.setOwnerRunId(runId);
+        job.setLeaseExpiresAt(leaseExpiresAt);
+        return true;
+    }
+
+    /**
+     * Whether this run still owns the job; false once another instance took it over after the
+     * lease ran out.
+     */
+    public boolean holds(ImportJobDocument job) {
+        return importJobRepository.existsByIdAndOwnerRunId(job.getId(), runId);
+    }
+
+    private void renew() {
+        try {
+            importJobRepository.renewLeases(runId, leaseExpiry());
+        } catch (RuntimeException e) {
+            log.warn("Import lease renewal failed", e);
+        }
+    }
+
+    private Instant leaseExpiry() {
+        return Instant.now().plus(properties.duration());
+    }
+}
@@ -1,117 +1,133 @@
 package com.marcinpypec.banktransactions.importjob.service;
 
-import com.marcinpypec.banktransactions.csv.CsvTransactionReader;
-import com.marcinpypec.banktransactions.csv.RowValidationException;
-import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
 import com.marcinpypec.banktransactions.importjob.exception.ImportNotFoundException;
 import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
 import com.marcinpypec.banktransactions.importjob.model.ImportReport;
+import com.marcinpypec.banktransactions.importjob.model.ImportResult;
 import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
-import com.marcinpypec.banktransactions.stats.TransactionStatsMaterializer;
-import com.marcinpypec.banktransactions.transactions.TransactionBatchWriter;
-import com.marcinpypec.banktransactions.transactions.TransactionDocument;
-import com.marcinpypec.banktransactions.transactions.TransactionDocumentFactory;
-import com.marcinpypec.banktransactions.csv.TransactionDraft;
-import com.marcinpypec.banktransactions.csv.TransactionRowMapper;
-import com.marcinpypec.banktransactions.csv.TransactionRowValidator;
+import com.marcinpypec.banktransactions.importjob.storage.ImportFileStorage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ImportProcessor {
 
-    private static final int BATCH_SIZE = 1000;
-
-    private final CsvTransactionReader csvReader;
-    private final TransactionRowMapper rowMapper;
-    private final TransactionBatchWriter batchWriter;
-    private final TransactionRowValidator rowValidator;
+    private final TransactionImporter transactionImporter;
     private final ImportJobRepository importJobRepository;
-    private final TransactionDocumentFactory documentFactory;
-    private final TransactionStatsMaterializer statsMaterializer;
-
-    @Async
-    public void process(String jobId, byte[] fileBytes) {
-        ImportJobDocument job = importJobRepository.findById(jobId)
-                .orElseThrow(() -> new ImportNotFoundException(jobId));
-
-        start(job);
+    private final StatsMaterializationScheduler statsScheduler;
+    private final ImportFileStorage fileStorage;
+    private final ImportScheduler importScheduler;
+    private final ImportLeases importLeases;
 
+    public void process(String jobId, Path stagedFile) {
+        boolean resumable = false;
         try {
-            YearMonth expectedMonth = YearMonth.parse(job.getYearMonth());
-            ImportReport report = importTransactions(jobId, expectedMonth, fileBytes);
-            complete(job, report);
-        } catch (Exception e) {
-            fail(job, e);
-        }
-    }
-
-    private ImportReport importTransactions(String jobId, YearMonth expectedMonth, byte[] fileBytes) {
-        ImportReport report = ImportReport.empty();
-        List<TransactionDocument> batch = new ArrayList<>(BATCH_SIZE);
+            ImportJobDocument job = importJobRepository.findById(jobId)
+                    .orElseThrow(() -> new ImportNotFoundException(jobId));
 
-        try (CSVParser parser = csvReader.openParser(fileBytes)) {
-            for (CSVRecord record : parser) {
-                report = report.incTotal();
+            start(job);
 
-                try {
-                    TransactionDraft draft = rowMapper.map(record);
-                    rowValidator.validate(draft, expectedMonth);
-
-                    TransactionDocument doc = documentFactory.create(draft, jobId, expectedMonth);
-                    batch.add(doc);
-                    report = report.incImported();
-
-                    if (batch.size() >= BATCH_SIZE) {
-                        batchWriter.saveBatch(batch);
-                        batch.clear();
+            try {
+                YearMonth expectedMonth = YearMonth.parse(job.getYearMonth());
+                ImportResult result = transactionImporter.importFile(jobId, expectedMonth, stagedFile, job.getSegments());
+                resumable = takenOver(job);
+                if (!resumable) {
+                    complete(job, result);
+                }
+            } catch (Exception e) {
+                if (importScheduler.isStopping()) {
+                    resumable = true;
+                    log.info("Import interrupted by shutdown, will resume on restart: jobId={}", jobId);
+                } else {
+                    resumable = takenOver(job);
+                    if (!resumable) {
+                        fail(job, e);
                     }
-                } catch (RowValidationException | IllegalArgumentException ex) {
-                    report = report.incInvalid();
                 }
             }
+        } finally {
+            if (!resumable) {
+                fileStorage.delete(stagedFile);
+            }
+        }
+    }
 
-            batchWriter.saveBatch(batch);
-            return report;
+    public void abandon(ImportJobDocument job, Path stagedFile, String reason) {
+        log.warn("Abandoning import job: jobId={}, yearMonth={}, reason={}", job.getId(), job.getYearMonth(), reason);
+        job.setSegments(null);
+        job.setStatus(ImportStatus.FAILED);
+        job.setFinishedAt(Instant.now());
+        job.setErrorMessage(reason);
+        importJobRepository.save(job);
+        fileStorage.delete(stagedFile);
+    }
 
-        } catch (java.io.IOException e) {
-            throw new ImportFileReadException("Cannot close CSV parser", e);
+    /**
+     * A job whose lease ran out may be resumed by another instance; this one must then neither
+     * complete nor fail it, nor delete the staged file the new owner reads.
+     */
+    private boolean takenOver(ImportJobDocument job) {
+        if (importLeases.holds(job)) {
+            return false;
         }
+        log.warn("Import job taken over by another instance, dropping this run: jobId={}", job.getId());
+        return true;
     }
 
     private void start(ImportJobDocument job) {
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(Instant.now());
+        }
         job.setStatus(ImportStatus.PROCESSING);
-        job.setStartedAt(Instant.now());
         importJobRepository.save(job);
     }
 
-    private void complete(ImportJobDocument job, ImportReport report) {
+    private void complete(ImportJobDocument job, ImportResult result) {
+        ImportReport report = result.report();
         job.setTotalRows(report.totalRows());
         job.setImportedRows(report.importedRows());
         job.setInvalidRows(report.invalidRows());
+        job.setRejections(report.rejections());
+        job.setProgress(result.progress());
+        job.setBatchSize(result.batchSize());
+        job.setWriteRowsPerSecond(result.writeRowsPerSecond());
+        job.setSegments(null);
 
-        statsMaterializer.materializeForMonth(job.getYearMonth());
-
+        long statsRevision = statsScheduler.markStale(job.getYearMonth());
         job.setStatus(ImportStatus.COMPLETED);
         job.setFinishedAt(Instant.now());
         importJobRepository.save(job);
+
+        requestStats(job, result, statsRevision);
+    }
+
+    /**
+     * Hands this import's rows to the stats scheduler: the stats collected while parsing or, for a
+     * resumed job, an aggregation of the job's transactions. Stats are only requested once the job
+     * is completed, so an earlier attempt of a resumed job never added any.
+     */
+    private void requestStats(ImportJobDocument job, ImportResult result, long statsRevision) {
+        if (result.stats() != null) {
+            statsScheduler.applyDelta(job.getYearMonth(), statsRevision, job.getId(), result.stats());
+        } else {
+            statsScheduler.applyImport(job.getYearMonth(), statsRevision, job.getId());
+        }
     }
 
     private void fail(ImportJobDocument job, Exception e) {
         log.error("Import job failed: jobId={}, yearMonth={}", job.getId(), job.getYearMonth(), e);
+        importJobRepository.findById(job.getId())
+                .map(ImportJobDocument::getProgress)
+                .ifPresent(job::setProgress);
+        job.setSegments(null);
         job.setStatus(ImportStatus.FAILED);
         job.setFinishedAt(Instant.now());
         job.setErrorMessage(toSafeMessage(e));
@@ -0,0 +1,79 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportProgress;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects row and byte counts from all reader threads of one import and writes them to the
+ * job as a {@code $set} of its {@code progress} field, at most once per interval. Whichever
+ * thread crosses the interval first does the write; the others carry on parsing.
+ */
+@Slf4j
+class ImportProgressTracker {
+
+    private final String jobId;
+    private final long totalBytes;
+    private final long intervalNanos;
+    private final ImportJobRepository importJobRepository;
+    private final long startedAt = System.nanoTime();
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong nextWriteAt;
+    private long baseRows;
+    private long baseBytes;
+
+    ImportProgressTracker(String jobId, long totalBytes, Duration interval, ImportJobRepository importJobRepository) {
+        this.jobId = jobId;
+        this.totalBytes = totalBytes;
+        this.intervalNanos = interval.toNanos();
+        this.importJobRepository = importJobRepository;
+        this.nextWriteAt = new AtomicLong(startedAt + intervalNanos);
+    }
+
+    /**
+     * Counts work committed by an earlier attempt of the same job, without crediting it to this
+     * attempt's throughput.
+     */
+    void restore(long committedRows, long committedBytes) {
+        rows.add(committedRows);
+        bytes.add(committedBytes);
+        baseRows = committedRows;
+        baseBytes = committedBytes;
+    }
+
+    void advance(long rowsDelta, long bytesDelta) {
+        rows.add(rowsDelta);
+        bytes.add(bytesDelta);
+
+        long now = System.nanoTime();
+        long due = nextWriteAt.get();
+        if (now - due >= 0 && nextWriteAt.compareAndSet(due, now + intervalNanos)) {
+            try {
+                importJobRepository.updateProgress(jobId, snapshot());
+            } catch (RuntimeException e) {
+                log.warn("Cannot update import progress: jobId={}", jobId, e);
+            }
+        }
+    }
+
+    ImportProgress snapshot() {
+        long processedRows = rows.sum();
+        long processedBytes = Math.min(bytes.sum(), totalBytes);
+        double seconds = (System.nanoTime() - startedAt) / (double) TimeUnit.SECONDS.toNanos(1);
+        double rowsPerSecond = seconds > 0 ? (processedRows - baseRows) / seconds : 0;
+        Long etaSeconds = null;
+        if (processedBytes > baseBytes && seconds > 0) {
+            double bytesPerSecond = (processedBytes - baseBytes) / seconds;
+            etaSeconds = Math.round((totalBytes - processedBytes) / bytesPerSecond);
+        }
+        return new ImportProgress(processedRows, processedBytes, totalBytes, rowsPerSecond, etaSeconds, Instant.now());
+    }
+}
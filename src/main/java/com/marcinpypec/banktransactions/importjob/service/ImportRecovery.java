@@ -0,0 +1,75 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.exception.ImportRejectedException;
+import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.importjob.storage.ImportFileStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Picks up imports that were queued or running when the previous run of this instance stopped,
+ * on startup, and imports of other instances whose lease ran out, periodically; the periodic pass
+ * reads only jobs with an expired lease. Jobs whose staged file survived are queued again and
+ * continue from their last checkpoint; the rest are marked as failed so the month can be imported
+ * again. Jobs of live instances are left alone, see {@link ImportLeases}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportRecovery {
+
+    private static final List<ImportStatus> UNFINISHED = List.of(ImportStatus.RECEIVED, ImportStatus.PROCESSING);
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportProcessor importProcessor;
+    private final ImportScheduler importScheduler;
+    private final ImportFileStorage fileStorage;
+    private final ImportLeases importLeases;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        recover(importJobRepository.findByStatusIn(UNFINISHED));
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.lease.renew-interval}",
+            initialDelayString = "${app.import.lease.renew-interval}")
+    public void recoverExpired() {
+        recover(importJobRepository.findByStatusInAndLeaseExpiresAtBefore(UNFINISHED, Instant.now()));
+    }
+
+    private void recover(List<ImportJobDocument> interrupted) {
+        for (ImportJobDocument job : interrupted) {
+            String previousOwner = job.getOwnerId();
+            if (!importLeases.claim(job)) {
+                continue;
+            }
+            if (previousOwner != null && !previousOwner.equals(job.getOwnerId())) {
+                log.warn("Taking over import job with expired lease: jobId={}, previousOwner={}",
+                        job.getId(), previousOwner);
+            }
+            Path stagedFile = fileStorage.resolve(job.getId());
+            if (!Files.exists(stagedFile)) {
+                importProcessor.abandon(job, stagedFile, "Staged file lost before import finished");
+                continue;
+            }
+            try {
+                importScheduler.submit(job.getYearMonth(), () -> importProcessor.process(job.getId(), stagedFile));
+                log.info("Resuming import job: jobId={}, yearMonth={}, status={}",
+                        job.getId(), job.getYearMonth(), job.getStatus());
+            } catch (ImportRejectedException e) {
+                importProcessor.abandon(job, stagedFile, "Import queue full while resuming");
+            }
+        }
+    }
+}
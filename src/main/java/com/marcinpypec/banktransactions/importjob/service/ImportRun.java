@@ -0,0 +1,25 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+
+import java.time.YearMonth;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Per-import state shared by all reader threads of one job. Each reader hands its own
+ * {@link StatsAccumulator} to {@code stats} when it finishes; {@code stats} is null when the
+ * job resumes, since rows committed by the earlier attempt would be missing from it. Only the
+ * group-bys the month held when the job started are accumulated.
+ */
+record ImportRun(
+        String jobId,
+        YearMonth expectedMonth,
+        BatchSink sink,
+        AdaptiveBatchSizer sizer,
+        ImportProgressTracker progress,
+        ImportCheckpoints checkpoints,
+        Queue<StatsAccumulator> stats,
+        Set<StatsGroupBy> statsGroupBys
+) {}
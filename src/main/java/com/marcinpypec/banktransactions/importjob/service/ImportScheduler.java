@@ -0,0 +1,119 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.exception.ImportRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs imports on a fixed number of dedicated workers fed from a {@link FairImportQueue}.
+ * A submission that finds the queue full is rejected with {@link ImportRejectedException}.
+ * While the queue is full the instance reports itself as not ready, and it turns ready again
+ * once the backlog has drained to half of the capacity.
+ */
+@Slf4j
+@Component
+public class ImportScheduler {
+
+    private final ImportProperties.Scheduler properties;
+    private final FairImportQueue queue;
+    private final ExecutorService workers;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    private volatile boolean stopping;
+
+    public ImportScheduler(ImportProperties importProperties, ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry) {
+        this.properties = importProperties.scheduler();
+        this.eventPublisher = eventPublisher;
+        this.queue = new FairImportQueue(properties.queueCapacity());
+
+        ThreadFactory threadFactory = properties.virtualThreads()
+                ? Thread.ofVirtual().name("import-", 1).factory()
+                : Thread.ofPlatform().name("import-", 1).factory();
+        this.workers = Executors.newFixedThreadPool(properties.concurrency(), threadFactory);
+        for (int i = 0; i < properties.concurrency(); i++) {
+            workers.execute(this::work);
+        }
+
+        Gauge.builder("import.scheduler.queued", queue, FairImportQueue::size)
+                .description("Imports accepted and waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("import.scheduler.active", active, AtomicInteger::get)
+                .description("Imports currently being processed")
+                .register(meterRegistry);
+    }
+
+    public void checkAdmission() {
+        if (queue.isFull()) {
+            throw new ImportRejectedException(properties.retryAfter());
+        }
+    }
+
+    public void submit(String key, Runnable task) {
+        if (!queue.offer(key, task)) {
+            updateReadiness();
+            throw new ImportRejectedException(properties.retryAfter());
+        }
+        updateReadiness();
+    }
+
+    /**
+     * True once the application is shutting down; imports interrupted from then on are left
+     * in place to be resumed on the next start rather than failed.
+     */
+    public boolean isStopping() {
+        return stopping;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+        workers.shutdownNow();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            updateReadiness();
+            active.incrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Import task failed", e);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    private void updateReadiness() {
+        int size = queue.size();
+        if (size >= queue.capacity() && saturated.compareAndSet(false, true)) {
+            log.warn("Import queue saturated ({} queued), refusing traffic", size);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        } else if (size <= queue.capacity() / 2 && saturated.compareAndSet(true, false)) {
+            log.info("Import queue drained ({} queued), accepting traffic", size);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+}
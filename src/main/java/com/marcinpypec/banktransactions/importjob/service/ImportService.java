@@ -1,19 +1,24 @@
 package com.marcinpypec.banktransactions.importjob.service;
 
 import com.marcinpypec.banktransactions.importjob.exception.ImportAlreadyExistsException;
-import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
 import com.marcinpypec.banktransactions.importjob.mapper.ImportJobMapper;
 import com.marcinpypec.banktransactions.importjob.dto.ImportJobResponse;
 import com.marcinpypec.banktransactions.importjob.exception.ImportNotFoundException;
+import com.marcinpypec.banktransactions.importjob.exception.ImportRejectedException;
 import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
 import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.importjob.storage.ImportFileStorage;
+import com.marcinpypec.banktransactions.importjob.storage.StagedUpload;
+import com.marcinpypec.banktransactions.importjob.storage.UploadEncoding;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -22,15 +27,47 @@ public class ImportService {
     private final ImportJobMapper importJobMapper;
     private final ImportProcessor importProcessor;
     private final ImportJobRepository importJobRepository;
+    private final ImportFileStorage fileStorage;
+    private final ImportScheduler importScheduler;
+    private final ImportLeases importLeases;
 
-    public ImportJobResponse createImport(String yearMonth, MultipartFile file) {
-        validateImportDoesNotExist(yearMonth);
+    /**
+     * @param contentEncoding the file part's {@code Content-Encoding}, or null to recognise a
+     *                        compressed upload by its content
+     */
+    public ImportJobResponse createImport(String yearMonth, MultipartFile file, String contentEncoding, String clientId) {
+        UploadEncoding encoding = contentEncoding == null ? null : UploadEncoding.fromContentEncoding(contentEncoding);
+        importScheduler.checkAdmission();
 
         ImportJobDocument saved = importJobRepository.save(createImportJob(yearMonth, file));
 
-        byte[] bytes = readBytes(file);
+        StagedUpload upload;
+        try {
+            upload = fileStorage.stage(saved.getId(), file, encoding);
+        } catch (RuntimeException e) {
+            importJobRepository.deleteById(saved.getId());
+            throw e;
+        }
+        Path stagedFile = upload.path();
+        // The same file twice would count its rows twice; the unique index on the month and hash
+        // turns the second of two concurrent uploads away as well.
+        saved.setFileSha256(upload.sha256());
+        try {
+            importJobRepository.save(saved);
+        } catch (DuplicateKeyException e) {
+            fileStorage.delete(stagedFile);
+            importJobRepository.deleteById(saved.getId());
+            throw new ImportAlreadyExistsException(yearMonth);
+        }
 
-        importProcessor.process(saved.getId(), bytes);
+        String queueKey = clientId == null || clientId.isBlank() ? yearMonth : clientId;
+        try {
+            importScheduler.submit(queueKey, () -> importProcessor.process(saved.getId(), stagedFile));
+        } catch (ImportRejectedException e) {
+            fileStorage.delete(stagedFile);
+            importJobRepository.deleteById(saved.getId());
+            throw e;
+        }
 
         return importJobMapper.toResponse(saved);
     }
@@ -41,14 +78,8 @@ public class ImportService {
         return importJobMapper.toResponse(job);
     }
 
-    private void validateImportDoesNotExist(String yearMonth) {
-        if (importJobRepository.existsByYearMonth(yearMonth)) {
-            throw new ImportAlreadyExistsException(yearMonth);
-        }
-    }
-
     private ImportJobDocument createImportJob(String yearMonth, MultipartFile file) {
-        return ImportJobDocument.builder()
+        ImportJobDocument job = ImportJobDocument.builder()
                 .yearMonth(yearMonth)
                 .fileName(file.getOriginalFilename())
                 .status(ImportStatus.RECEIVED)
@@ -56,14 +87,9 @@ public class ImportService {
                 .totalRows(0)
                 .importedRows(0)
                 .invalidRows(0)
+                .rejections(Map.of())
                 .build();
-    }
-
-    private byte[] readBytes(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new ImportFileReadException("Cannot read uploaded file", e);
-        }
+        importLeases.assign(job);
+        return job;
     }
 }
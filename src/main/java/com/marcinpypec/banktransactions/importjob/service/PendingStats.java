@@ -0,0 +1,124 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.TransactionStatsMaterializer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stats changes of one month waiting for the next materialisation run. Deltas are kept per import
+ * until they are applied, so a rebuild can drop those of the imports it already read, and are
+ * then merged into a single update. {@code revision} is the newest month revision covered.
+ * Requested on-demand group-bys are added by a rebuild; {@code waiters} learn when it is done.
+ */
+class PendingStats {
+
+    private final Map<String, StatsAccumulator> deltas = new LinkedHashMap<>();
+    private final Set<String> aggregations = new LinkedHashSet<>();
+    private final Set<StatsGroupBy> groupBys = EnumSet.noneOf(StatsGroupBy.class);
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private boolean rebuild;
+    private long revision;
+
+    void addDelta(String importJobId, StatsAccumulator delta, long revision) {
+        deltas.put(importJobId, delta);
+        cover(revision);
+    }
+
+    /**
+     * For imports whose stats were not collected in full; their rows are aggregated instead.
+     */
+    void addAggregation(String importJobId, long revision) {
+        aggregations.add(importJobId);
+        cover(revision);
+    }
+
+    void requestRebuild(long revision) {
+        rebuild = true;
+        cover(revision);
+    }
+
+    void requestGroupBy(StatsGroupBy groupBy, CompletableFuture<Void> waiter) {
+        groupBys.add(groupBy);
+        waiters.add(waiter);
+    }
+
+    boolean hasWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    boolean isRebuild() {
+        return rebuild;
+    }
+
+    /**
+     * Whether a rebuild is needed, either requested or to add group-bys the month lacks.
+     */
+    boolean needsRebuild(Set<StatsGroupBy> materialized) {
+        return rebuild || !materialized.containsAll(groupBys);
+    }
+
+    Set<StatsGroupBy> groupBysAfterRebuild(Set<StatsGroupBy> materialized) {
+        Set<StatsGroupBy> all = EnumSet.copyOf(materialized);
+        all.addAll(groupBys);
+        return all;
+    }
+
+    long revision() {
+        return revision;
+    }
+
+    void dropCovered(Collection<String> importJobIds) {
+        deltas.keySet().removeAll(importJobIds);
+        aggregations.removeAll(importJobIds);
+    }
+
+    /**
+     * Applies the pending imports to the month holding {@code materialized}. A delta that does not
+     * track all of those, because a group-by was materialised while its import ran, is replaced by
+     * an aggregation of the import. Returns {@code false} if any of them went to a generation that
+     * was replaced meanwhile.
+     */
+    boolean applyIncrements(String yearMonth, Set<StatsGroupBy> materialized, TransactionStatsMaterializer materializer) {
+        StatsAccumulator merged = null;
+        for (Map.Entry<String, StatsAccumulator> entry : deltas.entrySet()) {
+            StatsAccumulator delta = entry.getValue();
+            if (!delta.covers(materialized)) {
+                aggregations.add(entry.getKey());
+            } else if (merged == null) {
+                merged = delta;
+            } else {
+                merged.merge(delta);
+            }
+        }
+        boolean applied = true;
+        if (merged != null) {
+            applied = materializer.applyDelta(yearMonth, merged);
+        }
+        for (String importJobId : aggregations) {
+            applied &= materializer.applyImport(yearMonth, importJobId);
+        }
+        return applied;
+    }
+
+    void complete() {
+        waiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    void fail(Throwable cause) {
+        waiters.forEach(waiter -> waiter.completeExceptionally(cause));
+    }
+
+    private void cover(long revision) {
+        this.revision = Math.max(this.revision, revision);
+    }
+}
@@ -0,0 +1,185 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Hands full batches from the parsing stage to a fixed set of writer threads through a
+ * bounded queue. {@link #accept} blocks while the queue is full, so the parser never runs
+ * further ahead of Mongo than {@code queueCapacity} batches.
+ */
+@Slf4j
+class PipelinedBatchSink implements BatchSink {
+
+    private static final PendingBatch END = new PendingBatch(List.of(), () -> {});
+
+    private final String jobId;
+    private final Function<List<TransactionDocument>, BatchWriteResult> writer;
+    private final AdaptiveBatchSizer sizer;
+    private final BlockingQueue<PendingBatch> queue;
+    private final ExecutorService writers;
+    private final List<Future<?>> futures = new ArrayList<>();
+    private final Timer parseWaitTimer;
+    private final Timer writeWaitTimer;
+    private final Consumer<PipelinedBatchSink> onClose;
+
+    private final LongAdder parseWaitNanos = new LongAdder();
+    private final LongAdder writeWaitNanos = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder alreadyWritten = new LongAdder();
+
+    private volatile Throwable failure;
+    private boolean finished;
+
+    PipelinedBatchSink(String jobId, Function<List<TransactionDocument>, BatchWriteResult> writer,
+                       AdaptiveBatchSizer sizer, int writerCount, int queueCapacity, Timer parseWaitTimer, Timer writeWaitTimer,
+                       Consumer<PipelinedBatchSink> onClose) {
+        this.jobId = jobId;
+        this.writer = writer;
+        this.sizer = sizer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.parseWaitTimer = parseWaitTimer;
+        this.writeWaitTimer = writeWaitTimer;
+        this.onClose = onClose;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerCount,
+                runnable -> new Thread(runnable, "import-writer-" + jobId + "-" + threadIndex.incrementAndGet()));
+        for (int i = 0; i < writerCount; i++) {
+            futures.add(writers.submit(this::drain));
+        }
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void accept(List<TransactionDocument> batch, Runnable onWritten) {
+        if (batch.isEmpty()) {
+            onWritten.run();
+            return;
+        }
+        PendingBatch pending = new PendingBatch(batch, onWritten);
+        long start = System.nanoTime();
+        try {
+            while (!queue.offer(pending, 100, TimeUnit.MILLISECONDS)) {
+                throwIfFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing batch", e);
+        }
+        recordWait(parseWaitTimer, parseWaitNanos, System.nanoTime() - start);
+        maxDepth.accumulateAndGet(queue.size(), Math::max);
+        throwIfFailed();
+    }
+
+    @Override
+    public BatchWriteResult finish() {
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    throwIfFailed();
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for writers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch writer failed", e.getCause());
+        }
+        throwIfFailed();
+        finished = true;
+        log.info("Import pipeline finished: jobId={}, parseWaitMs={}, writeWaitMs={}, maxQueueDepth={}",
+                jobId,
+                TimeUnit.NANOSECONDS.toMillis(parseWaitNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(writeWaitNanos.sum()),
+                maxDepth.get());
+        return new BatchWriteResult(inserted.sum(), alreadyWritten.sum());
+    }
+
+    @Override
+    public void close() {
+        if (!finished) {
+            queue.clear();
+            writers.shutdownNow();
+        } else {
+            writers.shutdown();
+        }
+        onClose.accept(this);
+    }
+
+    private void drain() {
+        while (true) {
+            PendingBatch batch;
+            long start = System.nanoTime();
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch == END) {
+                return;
+            }
+            recordWait(writeWaitTimer, writeWaitNanos, System.nanoTime() - start);
+            try {
+                long writeStart = System.nanoTime();
+                BatchWriteResult result = writer.apply(batch.documents());
+                sizer.recordWrite(batch.documents().size(), System.nanoTime() - writeStart);
+                inserted.add(result.inserted());
+                alreadyWritten.add(result.alreadyWritten());
+                batch.onWritten().run();
+            } catch (Throwable e) {
+                failure = e;
+                queue.clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rethrows a writer failure on the parsing thread. Errors are rethrown as they are, so an
+     * {@link OutOfMemoryError} in a writer is not turned into an ordinary import failure.
+     */
+    private void throwIfFailed() {
+        Throwable error = failure;
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Batch writer failed", error);
+        }
+    }
+
+    private static void recordWait(Timer timer, LongAdder total, long nanos) {
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        total.add(nanos);
+    }
+
+    private record PendingBatch(List<TransactionDocument> documents, Runnable onWritten) {}
+}
@@ -0,0 +1,89 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Re-runs a batch write after a transient failure (lost connection, primary step-down, timeout)
+ * with jittered exponential backoff. This relies on deterministic transaction ids: replaying a
+ * batch that was partly stored only counts the stored rows as already written.
+ */
+@Slf4j
+class RetryingBatchWriter implements Function<List<TransactionDocument>, BatchWriteResult> {
+
+    private static final String RETRYABLE_WRITE_ERROR = "RetryableWriteError";
+
+    private final Function<List<TransactionDocument>, BatchWriteResult> writer;
+    private final ImportProperties.WriteRetry retry;
+    private final Counter retries;
+
+    RetryingBatchWriter(Function<List<TransactionDocument>, BatchWriteResult> writer,
+                        ImportProperties.WriteRetry retry, Counter retries) {
+        this.writer = writer;
+        this.retry = retry;
+        this.retries = retries;
+    }
+
+    @Override
+    public BatchWriteResult apply(List<TransactionDocument> batch) {
+        long backoffMillis = retry.initialBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return writer.apply(batch);
+            } catch (RuntimeException e) {
+                if (attempt >= retry.maxAttempts() || !isTransient(e)) {
+                    throw e;
+                }
+                long sleepMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1);
+                log.warn("Transient batch write failure, retrying in {}ms: attempt={}/{}, size={}, error={}",
+                        sleepMillis, attempt, retry.maxAttempts(), batch.size(), e.toString());
+                retries.increment();
+                sleep(sleepMillis, e);
+                backoffMillis = Math.min(backoffMillis * 2, retry.maxBackoff().toMillis());
+            }
+        }
+    }
+
+    static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof MongoSocketException
+                    || t instanceof MongoTimeoutException
+                    || t instanceof MongoNotPrimaryException
+                    || t instanceof MongoNodeIsRecoveringException) {
+                return true;
+            }
+            if (t instanceof MongoException mongo
+                    && (mongo.hasErrorLabel(RETRYABLE_WRITE_ERROR)
+                    || mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sleep(long millis, RuntimeException cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cause.addSuppressed(e);
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.csv.RejectReason;
+import com.marcinpypec.banktransactions.importjob.model.ImportReport;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Mutable row counters for one reader thread; turned into an {@link ImportReport} at each checkpoint.
+ */
+class RowTally {
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private int total;
+    private int imported;
+    private final int[] rejected = new int[REASONS.length];
+
+    RowTally() {
+    }
+
+    RowTally(ImportReport from) {
+        total = from.totalRows();
+        imported = from.importedRows();
+        from.rejections().forEach((reason, count) -> rejected[reason.ordinal()] = count);
+    }
+
+    int total() {
+        return total;
+    }
+
+    void imported() {
+        total++;
+        imported++;
+    }
+
+    void rejected(RejectReason reason) {
+        total++;
+        rejected[reason.ordinal()]++;
+    }
+
+    ImportReport toReport() {
+        Map<RejectReason, Integer> rejections = new EnumMap<>(RejectReason.class);
+        int invalid = 0;
+        for (RejectReason reason : REASONS) {
+            int count = rejected[reason.ordinal()];
+            if (count > 0) {
+                rejections.put(reason, count);
+                invalid += count;
+            }
+        }
+        return new ImportReport(total, imported, invalid, rejections);
+    }
+}
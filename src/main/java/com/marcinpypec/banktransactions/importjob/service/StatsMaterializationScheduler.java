@@ -0,0 +1,261 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.stats.GroupByMaterializer;
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.StatsLock;
+import com.marcinpypec.banktransactions.stats.StatsMonthDocument;
+import com.marcinpypec.banktransactions.stats.StatsMonths;
+import com.marcinpypec.banktransactions.stats.StatsProperties;
+import com.marcinpypec.banktransactions.stats.TransactionStatsMaterializer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Brings month stats up to date off the import path, on its own small pool. Requests for a month
+ * are collected for a short debounce and applied by one run: deltas of all pending imports are
+ * merged into one update, and imports the active generation was rebuilt from are dropped, even
+ * when their stats arrive after the rebuild. Changes that land on a generation replaced while
+ * they were written are recovered by rebuilding the month; their imports are completed by then.
+ * A month is never worked on by two runs at once, also across instances: a run holds the month's
+ * {@link StatsLock} and is retried shortly if another instance has it. Requests arriving during a
+ * run are picked up by the next one. On-demand group-bys are added to a month by a rebuild that runs without the
+ * debounce, since a reader is waiting for it, also when requested during another run. Failed runs
+ * are retried as rebuilds with a growing delay.
+ *
+ * <p>Pending work lives only in memory. The month is marked stale in {@code stats_months} before
+ * its import completes, so anything lost to a crash or a failed run ends in a rebuild.
+ */
+@Slf4j
+@Component
+public class StatsMaterializationScheduler implements GroupByMaterializer {
+
+    private static final Duration LOCKED_RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final TransactionStatsMaterializer materializer;
+    private final StatsMonths statsMonths;
+    private final StatsLock statsLock;
+    private final ImportJobRepository importJobRepository;
+    private final StatsProperties.Materialization properties;
+    private final ScheduledExecutorService executor;
+    private final Map<String, PendingStats> pending = new HashMap<>();
+    private final Set<String> running = new HashSet<>();
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public StatsMaterializationScheduler(TransactionStatsMaterializer materializer, StatsMonths statsMonths,
+                                         StatsLock statsLock, ImportJobRepository importJobRepository,
+                                         StatsProperties statsProperties, MeterRegistry meterRegistry) {
+        this.materializer = materializer;
+        this.statsMonths = statsMonths;
+        this.statsLock = statsLock;
+        this.importJobRepository = importJobRepository;
+        this.properties = statsProperties.materialization();
+        this.executor = Executors.newScheduledThreadPool(properties.concurrency(),
+                Thread.ofPlatform().name("stats-", 1).factory());
+
+        Gauge.builder("stats.materialization.pending", this, StatsMaterializationScheduler::pendingMonths)
+                .description("Months with stats changes waiting to be applied")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks the month stale before an import into it completes. The returned revision goes with
+     * the import's stats request.
+     */
+    public long markStale(String yearMonth) {
+        return statsMonths.markStale(yearMonth);
+    }
+
+    public void applyDelta(String yearMonth, long revision, String importJobId, StatsAccumulator delta) {
+        request(yearMonth, properties.debounce(), stats -> stats.addDelta(importJobId, delta, revision));
+    }
+
+    public void applyImport(String yearMonth, long revision, String importJobId) {
+        request(yearMonth, properties.debounce(), stats -> stats.addAggregation(importJobId, revision));
+    }
+
+    public void rebuild(String yearMonth, long revision) {
+        request(yearMonth, properties.debounce(), stats -> stats.requestRebuild(revision));
+    }
+
+    @Override
+    public CompletableFuture<Void> materialize(String yearMonth, StatsGroupBy groupBy) {
+        CompletableFuture<Void> materialized = new CompletableFuture<>();
+        request(yearMonth, Duration.ZERO, stats -> stats.requestGroupBy(groupBy, materialized));
+        return materialized;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildStaleMonths() {
+        for (StatsMonthDocument month : statsMonths.findStale()) {
+            log.info("Stats left stale by previous run, rebuilding: yearMonth={}", month.getYearMonth());
+            rebuild(month.getYearMonth(), month.getStatsRevision());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Adds to the month's pending work and makes sure a run is due within {@code delay}. A run
+     * already scheduled later is not cancelled; it finds nothing left to do.
+     */
+    private void request(String yearMonth, Duration delay, Consumer<PendingStats> change) {
+        lock.lock();
+        try {
+            PendingStats stats = pending.get(yearMonth);
+            boolean due = stats != null;
+            if (stats == null) {
+                stats = new PendingStats();
+                pending.put(yearMonth, stats);
+            }
+            if (!running.contains(yearMonth) && (!due || delay.isZero())) {
+                schedule(yearMonth, delay);
+            }
+            change.accept(stats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run(String yearMonth) {
+        lock.lock();
+        try {
+            if (running.contains(yearMonth) || !pending.containsKey(yearMonth)) {
+                return;
+            }
+            running.add(yearMonth);
+        } finally {
+            lock.unlock();
+        }
+
+        boolean ran = false;
+        try {
+            ran = statsLock.tryRunLocked(StatsLock.month(yearMonth), () -> materialize(yearMonth));
+        } finally {
+            if (!ran) {
+                log.debug("Stats month not run, locked by another instance: yearMonth={}", yearMonth);
+                lock.lock();
+                try {
+                    running.remove(yearMonth);
+                    schedule(yearMonth, LOCKED_RETRY_DELAY);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the month's pending work; runs holding the month's lock.
+     */
+    private void materialize(String yearMonth) {
+        PendingStats work;
+        lock.lock();
+        try {
+            work = pending.remove(yearMonth);
+        } finally {
+            lock.unlock();
+        }
+
+        boolean failed = false;
+        long start = System.nanoTime();
+        try {
+            Set<StatsGroupBy> materialized = statsMonths.materialized(yearMonth);
+            boolean rebuild = work.needsRebuild(materialized);
+            if (rebuild) {
+                List<String> covered = completedImports(yearMonth);
+                materialized = work.groupBysAfterRebuild(materialized);
+                materializer.materializeForMonth(yearMonth, covered, materialized);
+            }
+            work.dropCovered(statsMonths.rebuiltFrom(yearMonth));
+            if (!work.applyIncrements(yearMonth, materialized, materializer)) {
+                rebuild = true;
+                materializer.materializeForMonth(yearMonth, completedImports(yearMonth), materialized);
+            }
+            materializer.rollUp(yearMonth);
+            boolean fresh = statsMonths.markFresh(yearMonth, work.revision());
+            work.complete();
+            log.info("Stats materialised: yearMonth={}, rebuild={}, groupBys={}, fresh={}, tookMs={}",
+                    yearMonth, rebuild, materialized, fresh, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            failed = true;
+            work.fail(e);
+            log.error("Stats materialisation failed, month will be rebuilt: yearMonth={}", yearMonth, e);
+        } finally {
+            lock.lock();
+            try {
+                running.remove(yearMonth);
+                PendingStats next = pending.get(yearMonth);
+                if (failed) {
+                    next = pending.computeIfAbsent(yearMonth, k -> new PendingStats());
+                    next.requestRebuild(work.revision());
+                    schedule(yearMonth, retryDelay(failures.merge(yearMonth, 1, Integer::sum)));
+                } else {
+                    failures.remove(yearMonth);
+                    if (next != null) {
+                        schedule(yearMonth, next.hasWaiters() ? Duration.ZERO : properties.debounce());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Doubles the retry delay with every consecutive failure of the month, up to the maximum.
+     */
+    private Duration retryDelay(int failures) {
+        Duration delay = properties.retryDelay().multipliedBy(1L << Math.min(failures - 1, 20));
+        return delay.compareTo(properties.maxRetryDelay()) > 0 ? properties.maxRetryDelay() : delay;
+    }
+
+    private List<String> completedImports(String yearMonth) {
+        return importJobRepository.findByYearMonthAndStatus(yearMonth, ImportStatus.COMPLETED).stream()
+                .map(ImportJobDocument::getId)
+                .toList();
+    }
+
+    private void schedule(String yearMonth, Duration delay) {
+        try {
+            executor.schedule(() -> run(yearMonth), delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.info("Stats materialisation not scheduled during shutdown: yearMonth={}", yearMonth);
+        }
+    }
+
+    private int pendingMonths() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
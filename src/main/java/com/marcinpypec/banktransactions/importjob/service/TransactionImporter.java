@@ -0,0 +1,236 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.csv.CsvChunk;
+import com.marcinpypec.banktransactions.csv.CsvEngine;
+import com.marcinpypec.banktransactions.csv.CsvRow;
+import com.marcinpypec.banktransactions.csv.CsvRowReader;
+import com.marcinpypec.banktransactions.csv.CsvSplit;
+import com.marcinpypec.banktransactions.csv.CsvTransactionReader;
+import com.marcinpypec.banktransactions.csv.RejectReason;
+import com.marcinpypec.banktransactions.csv.TransactionDraft;
+import com.marcinpypec.banktransactions.csv.TransactionRowMapper;
+import com.marcinpypec.banktransactions.csv.TransactionRowPlan;
+import com.marcinpypec.banktransactions.csv.TransactionRowValidator;
+import com.marcinpypec.banktransactions.importjob.config.ImportMode;
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+import com.marcinpypec.banktransactions.importjob.model.ImportResult;
+import com.marcinpypec.banktransactions.importjob.model.ImportSegment;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.StatsMonths;
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import com.marcinpypec.banktransactions.transactions.TransactionDocumentFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionImporter {
+
+    private static final int PROGRESS_STRIDE = 4096;
+    // row ordinal = segment index in the high bits, row number within the segment below
+    private static final int ORDINAL_SEGMENT_SHIFT = 40;
+
+    private final CsvTransactionReader csvReader;
+    private final TransactionRowMapper rowMapper;
+    private final BatchSinkFactory batchSinkFactory;
+    private final TransactionRowValidator rowValidator;
+    private final TransactionDocumentFactory documentFactory;
+    private final ImportProperties properties;
+    private final ForkJoinPool importForkJoinPool;
+    private final ImportJobRepository importJobRepository;
+    private final StatsMonths statsMonths;
+
+    public ImportResult importFile(String jobId, YearMonth expectedMonth, Path file, List<ImportSegment> checkpoint) {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(properties.batching());
+        ImportProgressTracker progress = new ImportProgressTracker(jobId, sizeOf(file),
+                properties.progressInterval(), importJobRepository);
+        boolean resuming = checkpoint != null && !checkpoint.isEmpty();
+        List<ImportSegment> segments = resuming
+                ? resume(jobId, checkpoint, progress)
+                : plan(jobId, file);
+        ImportCheckpoints checkpoints = new ImportCheckpoints(jobId, segments, importJobRepository);
+        Queue<StatsAccumulator> stats = resuming ? null : new ConcurrentLinkedQueue<>();
+        Set<StatsGroupBy> statsGroupBys = resuming ? Set.of() : statsMonths.materialized(expectedMonth.toString());
+
+        try (BatchSink sink = batchSinkFactory.open(jobId, sizer)) {
+            ImportRun run = new ImportRun(jobId, expectedMonth, sink, sizer, progress, checkpoints, stats,
+                    statsGroupBys);
+            if (properties.csvEngine() == CsvEngine.MAPPED) {
+                importSegments(run, file);
+            } else {
+                importSequential(run, file);
+            }
+            BatchWriteResult written = sink.finish();
+            log.info("Import write finished: jobId={}, inserted={}, alreadyWritten={}, batchSize={}, rowsPerSecond={}",
+                    jobId, written.inserted(), written.alreadyWritten(), sizer.batchSize(), Math.round(sizer.rowsPerSecond()));
+            return new ImportResult(checkpoints.report(), progress.snapshot(), sizer.batchSize(), sizer.rowsPerSecond(),
+                    stats == null ? null : merge(stats, statsGroupBys));
+        }
+    }
+
+    private List<ImportSegment> plan(String jobId, Path file) {
+        List<ImportSegment> segments;
+        if (properties.csvEngine() == CsvEngine.MAPPED) {
+            boolean parallel = properties.mode() == ImportMode.PARALLEL;
+            CsvSplit split = csvReader.split(file,
+                    parallel ? properties.parallel().effectiveParallelism() * 4 : 1,
+                    parallel ? properties.parallel().minChunkSize().toBytes() : sizeOf(file));
+            segments = split.chunks().stream()
+                    .map(chunk -> ImportSegment.planned(chunk.index(), chunk.start(), chunk.end()))
+                    .toList();
+        } else {
+            segments = List.of(ImportSegment.planned(0, 0, sizeOf(file)));
+        }
+        importJobRepository.saveSegments(jobId, segments);
+        log.debug("Importing jobId={} in {} segments", jobId, segments.size());
+        return segments;
+    }
+
+    private List<ImportSegment> resume(String jobId, List<ImportSegment> segments, ImportProgressTracker progress) {
+        long rows = 0;
+        long bytes = 0;
+        for (ImportSegment segment : segments) {
+            rows += segment.report().totalRows();
+            bytes += segment.offset() - segment.start();
+        }
+        progress.restore(rows, bytes);
+        log.info("Resuming import: jobId={}, pendingSegments={}, committedRows={}", jobId,
+                segments.stream().filter(segment -> !segment.complete()).count(), rows);
+        return segments;
+    }
+
+    private void importSequential(ImportRun run, Path file) {
+        ImportSegment segment = run.checkpoints().segments().getFirst();
+        if (segment.complete()) {
+            return;
+        }
+        try (CsvRowReader reader = csvReader.open(file, properties.csvEngine())) {
+            for (int skipped = 0; skipped < segment.report().totalRows() && reader.next(); skipped++) {
+                // rows up to the checkpoint are already written
+            }
+            importRows(reader, run, segment, 0);
+        }
+    }
+
+    private void importSegments(ImportRun run, Path file) {
+        List<ImportSegment> pending = run.checkpoints().segments().stream()
+                .filter(segment -> !segment.complete())
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> header = csvReader.split(file, 1, sizeOf(file)).header();
+        if (properties.mode() != ImportMode.PARALLEL) {
+            pending.forEach(segment -> importSegment(run, file, header, segment));
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(pending.size());
+        for (ImportSegment segment : pending) {
+            tasks.add(importForkJoinPool.submit(() -> importSegment(run, file, header, segment)));
+        }
+        try {
+            tasks.forEach(ForkJoinTask::join);
+        } catch (RuntimeException e) {
+            tasks.forEach(task -> task.cancel(false));
+            throw e;
+        }
+    }
+
+    private void importSegment(ImportRun run, Path file, List<String> header, ImportSegment segment) {
+        CsvChunk remaining = new CsvChunk(segment.index(), segment.offset(), segment.end());
+        try (CsvRowReader reader = csvReader.open(file, header, remaining)) {
+            importRows(reader, run, segment, segment.offset());
+        }
+    }
+
+    private void importRows(CsvRowReader reader, ImportRun run, ImportSegment segment, long offsetBase) {
+        AdaptiveBatchSizer sizer = run.sizer();
+        RowTally tally = new RowTally(segment.report());
+        StatsAccumulator stats = run.stats() == null ? null : new StatsAccumulator(run.statsGroupBys());
+        ImportSegment checkpoint = segment;
+        List<TransactionDocument> batch = new ArrayList<>(sizer.batchSize());
+        long batchBytes = 0;
+        TransactionRowPlan plan = rowMapper.compile(reader.header());
+        int unreportedRows = 0;
+        long reportedBytes = segment.offset() - offsetBase;
+
+        while (reader.next()) {
+            CsvRow row = reader.row();
+            if (++unreportedRows == PROGRESS_STRIDE) {
+                long bytesRead = reader.bytesRead();
+                run.progress().advance(unreportedRows, bytesRead - reportedBytes);
+                unreportedRows = 0;
+                reportedBytes = bytesRead;
+            }
+
+            TransactionDraft draft = plan.map(row);
+            Optional<RejectReason> rejection = draft == null
+                    ? Optional.of(plan.rejectReason(row))
+                    : rowValidator.validate(draft, run.expectedMonth());
+            if (rejection.isPresent()) {
+                tally.rejected(rejection.get());
+                continue;
+            }
+
+            long ordinal = (long) segment.index() << ORDINAL_SEGMENT_SHIFT | tally.total();
+            TransactionDocument doc = documentFactory.create(draft, run.jobId(), run.expectedMonth(), ordinal);
+            batch.add(doc);
+            batchBytes += AdaptiveBatchSizer.estimateBytes(doc);
+            tally.imported();
+            if (stats != null) {
+                stats.add(doc);
+            }
+
+            if (sizer.shouldFlush(batch.size(), batchBytes)) {
+                checkpoint = checkpoint.advance(offsetBase + reader.bytesRead(), tally.toReport(), false);
+                flush(run, batch, checkpoint);
+                batch = new ArrayList<>(sizer.batchSize());
+                batchBytes = 0;
+            }
+        }
+
+        flush(run, batch, checkpoint.advance(offsetBase + reader.bytesRead(), tally.toReport(), true));
+        run.progress().advance(unreportedRows, reader.bytesRead() - reportedBytes);
+        if (stats != null) {
+            run.stats().add(stats);
+        }
+    }
+
+    private static void flush(ImportRun run, List<TransactionDocument> batch, ImportSegment checkpoint) {
+        run.sink().accept(batch, () -> run.checkpoints().written(checkpoint));
+    }
+
+    private static StatsAccumulator merge(Queue<StatsAccumulator> partials, Set<StatsGroupBy> groupBys) {
+        StatsAccumulator merged = new StatsAccumulator(groupBys);
+        partials.forEach(merged::merge);
+        return merged;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new ImportFileReadException("Cannot read staged file", e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.marcinpypec.banktransactions.importjob.storage;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportFileStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ImportProperties properties;
+
+    /**
+     * Copies the upload next to its final name, forces it to disk and then renames it, so a
+     * staged file that exists after a crash is always complete. A gzip or zstd upload is
+     * decompressed on the way through, so the staged file is always plain CSV; {@code encoding}
+     * is null to recognise it from the content. The SHA-256 is of the decompressed content, so
+     * the same file is recognised however it was sent.
+     */
+    public StagedUpload stage(String jobId, MultipartFile file, UploadEncoding encoding) {
+        Path partial = null;
+        try {
+            Path target = resolve(jobId);
+            partial = Files.createDirectories(target.getParent()).resolve(jobId + ".csv.part");
+            MessageDigest digest = sha256();
+            try (BufferedInputStream raw = new BufferedInputStream(file.getInputStream(), BUFFER_SIZE)) {
+                UploadEncoding effective = encoding != null ? encoding : detect(raw);
+                try (InputStream in = new DigestInputStream(effective.decode(raw), digest);
+                     OutputStream out = Files.newOutputStream(partial)) {
+                    long staged = copy(in, out, properties.maxStagedSize().toBytes());
+                    log.info("Upload staged: jobId={}, encoding={}, uploadedBytes={}, stagedBytes={}",
+                            jobId, effective, file.getSize(), staged);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Path staged = Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new StagedUpload(staged, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException e) {
+            delete(partial);
+            throw new ImportFileReadException("Cannot stage uploaded file", e);
+        } catch (RuntimeException e) {
+            delete(partial);
+            throw e;
+        }
+    }
+
+    public Path resolve(String jobId) {
+        return properties.stagingDir().resolve(jobId + ".csv");
+    }
+
+    public void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete staged import file: {}", file, e);
+        }
+    }
+
+    private static UploadEncoding detect(BufferedInputStream in) throws IOException {
+        byte[] head = new byte[UploadEncoding.MAGIC_LENGTH];
+        in.mark(head.length);
+        int length = in.readNBytes(head, 0, head.length);
+        in.reset();
+        return UploadEncoding.detect(head, length);
+    }
+
+    /**
+     * Like {@link InputStream#transferTo}, but gives up once more than {@code limit} bytes came
+     * out, so a small archive cannot fill the staging disk.
+     */
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            total += read;
+            if (total > limit) {
+                throw new MaxUploadSizeExceededException(limit);
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
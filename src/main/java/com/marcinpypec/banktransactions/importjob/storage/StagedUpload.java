@@ -0,0 +1,8 @@
+package com.marcinpypec.banktransactions.importjob.storage;
+
+import java.nio.file.Path;
+
+public record StagedUpload(
+        Path path,
+        String sha256
+) {}
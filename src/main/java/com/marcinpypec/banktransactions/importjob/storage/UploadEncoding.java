@@ -0,0 +1,62 @@
+package com.marcinpypec.banktransactions.importjob.storage;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of an uploaded file. Taken from the part's {@code Content-Encoding} when the client
+ * sends one, otherwise recognised by the magic bytes the file starts with.
+ */
+public enum UploadEncoding {
+
+    IDENTITY(new byte[0]),
+    GZIP(new byte[]{(byte) 0x1f, (byte) 0x8b}),
+    ZSTD(new byte[]{(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd});
+
+    static final int MAGIC_LENGTH = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] magic;
+
+    UploadEncoding(byte[] magic) {
+        this.magic = magic;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an encoding other than gzip, zstd or identity
+     */
+    public static UploadEncoding fromContentEncoding(String contentEncoding) {
+        return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> GZIP;
+            case "zstd" -> ZSTD;
+            case "identity" -> IDENTITY;
+            default -> throw new IllegalArgumentException("Unsupported Content-Encoding: " + contentEncoding);
+        };
+    }
+
+    static UploadEncoding detect(byte[] head, int length) {
+        for (UploadEncoding encoding : values()) {
+            if (encoding != IDENTITY && length >= encoding.magic.length
+                    && Arrays.equals(head, 0, encoding.magic.length, encoding.magic, 0, encoding.magic.length)) {
+                return encoding;
+            }
+        }
+        return IDENTITY;
+    }
+
+    /**
+     * Wraps {@code in} so that reading it yields the decompressed content, one buffer at a time.
+     */
+    InputStream decode(InputStream in) throws IOException {
+        return switch (this) {
+            case IDENTITY -> in;
+            case GZIP -> new GZIPInputStream(in, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+}
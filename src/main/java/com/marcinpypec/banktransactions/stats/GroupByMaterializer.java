@@ -0,0 +1,11 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Materialises an on-demand group-by for a month; the future completes once readers see it.
+ */
+public interface GroupByMaterializer {
+
+    CompletableFuture<Void> materialize(String yearMonth, StatsGroupBy groupBy);
+}
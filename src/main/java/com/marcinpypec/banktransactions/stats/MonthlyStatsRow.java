@@ -1,10 +1,13 @@
 package com.marcinpypec.banktransactions.stats;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public record MonthlyStatsRow(
         String yearMonth,
         String currency,
         long count,
-        BigDecimal totalAmount
+        BigDecimal totalAmount,
+        StatsStatus statsStatus,
+        Instant statsAsOf
 ) {}
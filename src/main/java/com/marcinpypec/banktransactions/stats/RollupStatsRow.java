@@ -0,0 +1,17 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of one period; {@code fromMonth} and {@code toMonth} are narrower than the period when
+ * the queried range cuts it.
+ */
+public record RollupStatsRow(
+        String period,
+        String fromMonth,
+        String toMonth,
+        String key,
+        String currency,
+        long count,
+        BigDecimal totalAmount
+) {}
@@ -0,0 +1,161 @@
+package com.marcinpypec.banktransactions.stats;
+
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Count and sum per (CATEGORY, currency), (IBAN, currency) and (MONTH, currency) for the rows
+ * of one import, built while they are parsed. Not thread-safe: each reader thread fills its own
+ * instance and they are combined with {@link #merge} once the readers are done. Only the tracked
+ * group-bys are collected; MONTH always is.
+ *
+ * <p>Lookups go through nested maps keyed by the document's own strings, so adding a row with
+ * known keys allocates nothing; sums stay in a {@code long} of unscaled units as long as they fit.
+ */
+public class StatsAccumulator {
+
+    private final Set<StatsGroupBy> tracked;
+    private final Map<String, Map<String, Cell>> categories = new HashMap<>();
+    private final Map<String, Map<String, Cell>> ibans = new HashMap<>();
+    private final Map<String, Cell> months = new HashMap<>();
+
+    public StatsAccumulator() {
+        this(EnumSet.allOf(StatsGroupBy.class));
+    }
+
+    public StatsAccumulator(Set<StatsGroupBy> groupBys) {
+        this.tracked = EnumSet.of(StatsGroupBy.MONTH);
+        this.tracked.addAll(groupBys);
+    }
+
+    public void add(TransactionDocument doc) {
+        String currency = doc.getCurrency();
+        BigDecimal amount = doc.getAmount();
+        if (tracked.contains(StatsGroupBy.CATEGORY)) {
+            cell(categories, doc.getCategory(), currency).add(amount);
+        }
+        if (tracked.contains(StatsGroupBy.IBAN)) {
+            cell(ibans, doc.getIban(), currency).add(amount);
+        }
+        months.computeIfAbsent(currency, c -> new Cell()).add(amount);
+    }
+
+    /**
+     * Adds {@code other} to this one; afterwards only the group-bys tracked by both are.
+     */
+    public void merge(StatsAccumulator other) {
+        tracked.retainAll(other.tracked);
+        mergeGroup(categories, other.categories);
+        mergeGroup(ibans, other.ibans);
+        other.months.forEach((currency, cell) -> months.computeIfAbsent(currency, c -> new Cell()).merge(cell));
+    }
+
+    public boolean covers(Set<StatsGroupBy> groupBys) {
+        return tracked.containsAll(groupBys);
+    }
+
+    public boolean isEmpty() {
+        return months.isEmpty();
+    }
+
+    /**
+     * The accumulated values as stats documents of {@code yearMonth}, to be added to what is stored.
+     */
+    public List<TransactionStatsDocument> toDeltas(String yearMonth) {
+        return toDeltas(yearMonth, tracked);
+    }
+
+    /**
+     * Like {@link #toDeltas(String)}, limited to the given group-bys.
+     */
+    public List<TransactionStatsDocument> toDeltas(String yearMonth, Set<StatsGroupBy> groupBys) {
+        List<TransactionStatsDocument> deltas = new ArrayList<>();
+        if (groupBys.contains(StatsGroupBy.CATEGORY)) {
+            addDeltas(deltas, yearMonth, StatsGroupBy.CATEGORY, categories);
+        }
+        if (groupBys.contains(StatsGroupBy.IBAN)) {
+            addDeltas(deltas, yearMonth, StatsGroupBy.IBAN, ibans);
+        }
+        months.forEach((currency, cell) ->
+                deltas.add(delta(yearMonth, StatsGroupBy.MONTH, TransactionStatsMaterializer.MONTH_TOTAL_KEY, currency, cell)));
+        return deltas;
+    }
+
+    private static Cell cell(Map<String, Map<String, Cell>> group, String key, String currency) {
+        Map<String, Cell> byCurrency = group.get(key);
+        if (byCurrency == null) {
+            byCurrency = new HashMap<>(4);
+            group.put(key, byCurrency);
+        }
+        Cell cell = byCurrency.get(currency);
+        if (cell == null) {
+            cell = new Cell();
+            byCurrency.put(currency, cell);
+        }
+        return cell;
+    }
+
+    private static void mergeGroup(Map<String, Map<String, Cell>> into, Map<String, Map<String, Cell>> from) {
+        from.forEach((key, byCurrency) -> byCurrency.forEach((currency, cell) -> cell(into, key, currency).merge(cell)));
+    }
+
+    private static void addDeltas(List<TransactionStatsDocument> deltas, String yearMonth, StatsGroupBy groupBy,
+                                  Map<String, Map<String, Cell>> group) {
+        group.forEach((key, byCurrency) -> byCurrency.forEach((currency, cell) ->
+                deltas.add(delta(yearMonth, groupBy, key, currency, cell))));
+    }
+
+    private static TransactionStatsDocument delta(String yearMonth, StatsGroupBy groupBy, String key,
+                                                  String currency, Cell cell) {
+        return TransactionStatsDocument.builder()
+                .yearMonth(yearMonth)
+                .groupBy(groupBy.name())
+                .key(key)
+                .currency(currency)
+                .count(cell.count)
+                .totalAmount(cell.total())
+                .build();
+    }
+
+    private static final class Cell {
+
+        private static final int MAX_LONG_PRECISION = 18;
+
+        private long count;
+        private long units;
+        private int scale = -1;
+        private BigDecimal spill = BigDecimal.ZERO;
+
+        private void add(BigDecimal amount) {
+            count++;
+            if (scale < 0) {
+                scale = amount.scale();
+            }
+            if (amount.scale() == scale && amount.precision() <= MAX_LONG_PRECISION) {
+                long value = amount.unscaledValue().longValue();
+                long sum = units + value;
+                if (((units ^ sum) & (value ^ sum)) >= 0) {
+                    units = sum;
+                    return;
+                }
+            }
+            spill = spill.add(amount);
+        }
+
+        private void merge(Cell other) {
+            count += other.count;
+            spill = spill.add(other.total());
+        }
+
+        private BigDecimal total() {
+            return scale < 0 ? spill : BigDecimal.valueOf(units, scale).add(spill);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.marcinpypec.banktransactions.stats;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marcinpypec.banktransactions.api.StatsSort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache of stats query results, bounded by the number of rows held. Results are
+ * cached under the state of the months they read as persisted in {@code stats_months}: active
+ * version, revision and {@code statsEpoch}, which every write of the month's stats bumps once it
+ * is done. Lookups take those states from an in-memory snapshot instead of the database. The
+ * snapshot is re-read every {@code refreshInterval}, so a month changed by another instance is
+ * served from the cache for at most one interval after the write; months changed by this instance
+ * are re-read right away. A result loaded while a write was in progress is stored under the old
+ * state and not found again. Entries of old states are left for the eviction policy to drop.
+ * Without a recent snapshot, while starting or when refreshing fails, queries bypass the cache.
+ */
+@Slf4j
+@Component
+public class StatsCache {
+
+    private static final int TRUSTED_REFRESHES = 10;
+
+    private final StatsMonths statsMonths;
+    private final Cache<Object, List<?>> cache;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("stats-cache").factory());
+    private volatile Snapshot snapshot;
+
+    public StatsCache(StatsMonths statsMonths, StatsProperties properties, MeterRegistry meterRegistry) {
+        this.statsMonths = statsMonths;
+        this.refreshInterval = properties.cache().refreshInterval();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.cache().maxRows())
+                .weigher((Object key, List<?> rows) -> rows.size() + 1)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats");
+    }
+
+    @PostConstruct
+    void start() {
+        executor.scheduleWithFixedDelay(this::poll, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<TransactionStatsRow> stats(String yearMonth, StatsGroupBy groupBy, int limit, StatsSort sort,
+                                           StatsCursor after, Supplier<List<TransactionStatsRow>> loader) {
+        Snapshot states = trustedSnapshot();
+        if (states == null) {
+            return loader.get();
+        }
+        return get(new StatsKey(yearMonth, states.months().get(yearMonth), groupBy, limit, sort, after), loader);
+    }
+
+    public List<MonthlyStatsRow> monthly(String from, String to, Supplier<List<MonthlyStatsRow>> loader) {
+        Snapshot states = trustedSnapshot();
+        if (states == null) {
+            return loader.get();
+        }
+        return get(new MonthlyKey(from, to, states.between(from, to)), loader);
+    }
+
+    public List<RollupStatsRow> rollups(String from, String to, StatsPeriod level, StatsGroupBy groupBy,
+                                        Supplier<List<RollupStatsRow>> loader) {
+        Snapshot states = trustedSnapshot();
+        if (states == null) {
+            return loader.get();
+        }
+        return get(new RollupsKey(from, to, level, groupBy, states.between(from, to)), loader);
+    }
+
+    /**
+     * Drops every cached result and re-reads all month states, for when {@code stats_months} was
+     * changed outside the application.
+     */
+    public void invalidateAll() {
+        NavigableMap<String, MonthState> months = readStates();
+        update(current -> new Snapshot(months, System.nanoTime()));
+        cache.invalidateAll();
+    }
+
+    /**
+     * Re-reads all month states. A state older than the one already held, read before a change
+     * this instance just made, does not replace it.
+     */
+    void refresh() {
+        NavigableMap<String, MonthState> months = readStates();
+        update(current -> {
+            if (current != null) {
+                months.replaceAll((yearMonth, state) -> MonthState.newer(current.months().get(yearMonth), state));
+            }
+            return new Snapshot(months, System.nanoTime());
+        });
+    }
+
+    @EventListener
+    void onMonthChanged(StatsMonthChanged event) {
+        try {
+            statsMonths.find(event.yearMonth()).map(MonthState::of).ifPresent(state -> update(current -> {
+                if (current == null) {
+                    return null;
+                }
+                NavigableMap<String, MonthState> months = new TreeMap<>(current.months());
+                months.merge(state.yearMonth(), state, MonthState::newer);
+                return new Snapshot(months, current.takenAt());
+            }));
+        } catch (RuntimeException e) {
+            log.warn("Stats cache update failed: yearMonth={}", event.yearMonth(), e);
+        }
+    }
+
+    private synchronized void update(UnaryOperator<Snapshot> change) {
+        snapshot = change.apply(snapshot);
+    }
+
+    private void poll() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Stats cache refresh failed", e);
+        }
+    }
+
+    private NavigableMap<String, MonthState> readStates() {
+        NavigableMap<String, MonthState> months = new TreeMap<>();
+        for (StatsMonthDocument month : statsMonths.findStates()) {
+            months.put(month.getYearMonth(), MonthState.of(month));
+        }
+        return months;
+    }
+
+    /**
+     * The latest snapshot, unless refreshing has not succeeded for several intervals.
+     */
+    private Snapshot trustedSnapshot() {
+        Snapshot states = snapshot;
+        if (states == null
+                || System.nanoTime() - states.takenAt() > refreshInterval.multipliedBy(TRUSTED_REFRESHES).toNanos()) {
+            return null;
+        }
+        return states;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(Object key, Supplier<List<T>> loader) {
+        return (List<T>) cache.get(key, k -> loader.get());
+    }
+
+    private record MonthState(String yearMonth, long activeVersion, long statsRevision, long statsEpoch) {
+
+        static MonthState of(StatsMonthDocument month) {
+            return new MonthState(month.getYearMonth(), month.getActiveVersion(), month.getStatsRevision(),
+                    month.getStatsEpoch());
+        }
+
+        static MonthState newer(MonthState held, MonthState read) {
+            return held != null && held.statsEpoch() > read.statsEpoch() ? held : read;
+        }
+    }
+
+    private record Snapshot(NavigableMap<String, MonthState> months, long takenAt) {
+
+        List<MonthState> between(String from, String to) {
+            return List.copyOf(months.subMap(from, true, to, true).values());
+        }
+    }
+
+    private record StatsKey(String yearMonth, MonthState state, StatsGroupBy groupBy, int limit, StatsSort sort,
+                            StatsCursor after) {}
+
+    private record MonthlyKey(String from, String to, List<MonthState> states) {}
+
+    private record RollupsKey(String from, String to, StatsPeriod level, StatsGroupBy groupBy,
+                              List<MonthState> states) {}
+}
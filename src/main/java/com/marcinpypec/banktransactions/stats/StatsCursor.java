@@ -0,0 +1,67 @@
+package com.marcinpypec.banktransactions.stats;
+
+import com.marcinpypec.banktransactions.api.StatsSort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a stats page, handed to clients as an opaque token. The next page
+ * starts right after it in (totalAmount, key, currency) order; it is only valid for the query it
+ * came from.
+ */
+public record StatsCursor(
+        String yearMonth,
+        StatsGroupBy groupBy,
+        StatsSort sort,
+        BigDecimal totalAmount,
+        String key,
+        String currency
+) {
+
+    private static final int FORMAT = 1;
+
+    static StatsCursor after(String yearMonth, StatsGroupBy groupBy, StatsSort sort, TransactionStatsRow row) {
+        return new StatsCursor(yearMonth, groupBy, sort, row.totalAmount(), row.key(), row.currency());
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(yearMonth);
+            out.writeUTF(groupBy.name());
+            out.writeUTF(sort.name());
+            out.writeUTF(totalAmount.toPlainString());
+            out.writeUTF(key);
+            out.writeUTF(currency);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code token} was not produced by {@link #encode}
+     */
+    public static StatsCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalArgumentException("cursor is invalid");
+            }
+            return new StatsCursor(in.readUTF(), StatsGroupBy.valueOf(in.readUTF()), StatsSort.valueOf(in.readUTF()),
+                    new BigDecimal(in.readUTF()), in.readUTF(), in.readUTF());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("cursor is invalid", e);
+        }
+    }
+
+    boolean matches(String yearMonth, StatsGroupBy groupBy, StatsSort sort) {
+        return this.yearMonth.equals(yearMonth) && this.groupBy == groupBy && this.sort == sort;
+    }
+}
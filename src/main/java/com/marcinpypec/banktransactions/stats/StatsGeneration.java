@@ -0,0 +1,11 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.util.Set;
+
+/**
+ * The generation of a month's stats readers currently see and the group-bys it holds.
+ */
+public record StatsGeneration(
+        long version,
+        Set<StatsGroupBy> groupBys
+) {}
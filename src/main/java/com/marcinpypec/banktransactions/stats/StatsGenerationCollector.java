@@ -0,0 +1,69 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Removes stats generations that were replaced by a rebuild. A generation is kept for a grace
+ * period after the flip, so readers that looked up the old version just before it can finish.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatsGenerationCollector {
+
+    private static final String UNVERSIONED_INDEX = "ux_stats";
+
+    private final MongoTemplate mongoTemplate;
+    private final StatsProperties properties;
+
+    /**
+     * Stats written before versioning have no version and a unique index that would reject a
+     * second generation of the month; they become version 0 and the old index is dropped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void adoptUnversionedStats() {
+        IndexOperations indexes = mongoTemplate.indexOps(TransactionStatsDocument.class);
+        if (indexes.getIndexInfo().stream().anyMatch(index -> UNVERSIONED_INDEX.equals(index.getName()))) {
+            indexes.dropIndex(UNVERSIONED_INDEX);
+            log.info("Dropped unversioned stats index: {}", UNVERSIONED_INDEX);
+        }
+        long adopted = mongoTemplate.updateMulti(
+                query(where("version").exists(false)),
+                new Update().set("version", StatsMonths.INITIAL_VERSION),
+                TransactionStatsDocument.class
+        ).getModifiedCount();
+        if (adopted > 0) {
+            log.info("Unversioned stats adopted as version {}: documents={}", StatsMonths.INITIAL_VERSION, adopted);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.gc-interval}", initialDelayString = "${app.stats.gc-interval}")
+    public void collect() {
+        Instant cutoff = Instant.now().minus(properties.gcGracePeriod());
+        for (StatsMonthDocument month : mongoTemplate.find(query(where("retiredAt").lte(cutoff)), StatsMonthDocument.class)) {
+            long removed = mongoTemplate.remove(
+                    query(where("yearMonth").is(month.getYearMonth()).and("version").lt(month.getActiveVersion())),
+                    TransactionStatsDocument.class
+            ).getDeletedCount();
+            mongoTemplate.updateFirst(
+                    query(where("_id").is(month.getYearMonth()).and("retiredAt").is(month.getRetiredAt())),
+                    new Update().unset("retiredAt"),
+                    StatsMonthDocument.class);
+            log.info("Retired stats generations removed: yearMonth={}, activeVersion={}, documents={}",
+                    month.getYearMonth(), month.getActiveVersion(), removed);
+        }
+    }
+}
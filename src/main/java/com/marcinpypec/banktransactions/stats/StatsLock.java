@@ -0,0 +1,131 @@
+package com.marcinpypec.banktransactions.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Named locks kept in {@code stats_locks}, so work on a month or on the rollups of a year runs on
+ * one thread of one instance at a time. The holder renews its lock on a thread of its own while
+ * it works; a lock whose holder died is taken over once it was not renewed for {@link #TTL}.
+ */
+@Slf4j
+@Component
+public class StatsLock {
+
+    static final Duration TTL = Duration.ofMinutes(1);
+    private static final Duration RENEW_INTERVAL = TTL.dividedBy(3);
+    private static final Duration RETRY_DELAY = Duration.ofMillis(50);
+    private static final String LOCKS_COLLECTION = "stats_locks";
+
+    private final MongoTemplate mongoTemplate;
+    private final ScheduledExecutorService renewals =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("stats-lock").factory());
+
+    public StatsLock(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public static String month(String yearMonth) {
+        return "month:" + yearMonth;
+    }
+
+    static String rollups(String year) {
+        return "rollups:" + year;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewals.shutdownNow();
+    }
+
+    /**
+     * Runs {@code action} holding the lock, waiting up to {@link #TTL} for it.
+     */
+    public void runLocked(String name, Runnable action) {
+        String owner = UUID.randomUUID().toString();
+        Instant deadline = Instant.now().plus(TTL);
+        while (!tryAcquire(name, owner)) {
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Stats lock not acquired: name=" + name);
+            }
+            try {
+                Thread.sleep(RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for stats lock: name=" + name, e);
+            }
+        }
+        runHolding(name, owner, action);
+    }
+
+    /**
+     * Runs {@code action} if nobody holds the lock; false, without running it, otherwise.
+     */
+    public boolean tryRunLocked(String name, Runnable action) {
+        String owner = UUID.randomUUID().toString();
+        if (!tryAcquire(name, owner)) {
+            return false;
+        }
+        runHolding(name, owner, action);
+        return true;
+    }
+
+    private void runHolding(String name, String owner, Runnable action) {
+        long interval = RENEW_INTERVAL.toMillis();
+        ScheduledFuture<?> renewal = renewals.scheduleWithFixedDelay(
+                () -> renew(name, owner), interval, interval, TimeUnit.MILLISECONDS);
+        try {
+            action.run();
+        } finally {
+            renewal.cancel(false);
+            mongoTemplate.remove(query(where("_id").is(name).and("owner").is(owner)), LOCKS_COLLECTION);
+        }
+    }
+
+    /**
+     * Takes the lock if nobody holds it or it expired; a live lock makes the upsert insert a
+     * second document with the same id, which the unique {@code _id} rejects.
+     */
+    private boolean tryAcquire(String name, String owner) {
+        Instant now = Instant.now();
+        try {
+            mongoTemplate.upsert(
+                    query(where("_id").is(name).and("lockedUntil").lt(now)),
+                    new Update().set("owner", owner).set("lockedUntil", now.plus(TTL)),
+                    LOCKS_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void renew(String name, String owner) {
+        try {
+            boolean held = mongoTemplate.updateFirst(
+                    query(where("_id").is(name).and("owner").is(owner)),
+                    new Update().set("lockedUntil", Instant.now().plus(TTL)),
+                    LOCKS_COLLECTION
+            ).getModifiedCount() > 0;
+            if (!held) {
+                log.warn("Stats lock lost while held: name={}", name);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stats lock renewal failed: name={}", name, e);
+        }
+    }
+}
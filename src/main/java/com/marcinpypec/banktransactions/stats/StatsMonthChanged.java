@@ -0,0 +1,6 @@
+package com.marcinpypec.banktransactions.stats;
+
+/**
+ * Published by {@link StatsMonths} once this instance changed the state of a month's stats.
+ */
+record StatsMonthChanged(String yearMonth) {}
@@ -0,0 +1,52 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Which generation of a month's stats readers see. Rebuilds write a new generation next to the
+ * active one and flip {@code activeVersion} to it once complete; {@code retiredAt} marks a month
+ * whose older generations are still waiting to be removed.
+ *
+ * <p>{@code statsRevision} is bumped whenever an import changes the month's transactions. Once the
+ * stats caught up with a revision and no newer one arrived, the month is {@code FRESH} again and
+ * {@code statsAsOf} records when. {@code statsEpoch} grows with every write to the month's state,
+ * stats or rollups, so results cached under it are never served after a change on any instance.
+ *
+ * <p>{@code materializedGroupBys} lists the group-bys held by the active generation; months
+ * written before group-bys could be on-demand have none and hold all of them.
+ *
+ * <p>{@code rebuiltFromImports} are the imports the active generation was rebuilt from; their
+ * stats are in it already and must not be added again.
+ */
+@Document("stats_months")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsMonthDocument {
+
+    @Id
+    private String yearMonth;
+
+    private long activeVersion;
+    private long lastVersion;
+    private Instant retiredAt;
+
+    private long statsRevision;
+    private StatsStatus statsStatus;
+    private Instant statsAsOf;
+    private long statsEpoch;
+
+    private Set<StatsGroupBy> materializedGroupBys;
+    private Set<String> rebuiltFromImports;
+}
@@ -0,0 +1,9 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.time.Instant;
+
+public record StatsMonthStatus(
+        String yearMonth,
+        StatsStatus statsStatus,
+        Instant statsAsOf
+) {}
@@ -0,0 +1,181 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Per-month stats state kept in {@code stats_months}: the active version pointer and freshness.
+ * Months that were never rebuilt have no pointer and are served from version 0. Changes made by
+ * this instance are announced with a {@link StatsMonthChanged} event.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsMonths {
+
+    static final long INITIAL_VERSION = 0;
+
+    private final MongoTemplate mongoTemplate;
+    private final StatsProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Optional<StatsMonthDocument> find(String yearMonth) {
+        return Optional.ofNullable(mongoTemplate.findById(yearMonth, StatsMonthDocument.class));
+    }
+
+    /**
+     * The months in {@code [from, to]} that have a document.
+     */
+    public Map<String, StatsMonthDocument> find(String from, String to) {
+        return mongoTemplate.find(query(where("_id").gte(from).lte(to)), StatsMonthDocument.class).stream()
+                .collect(Collectors.toMap(StatsMonthDocument::getYearMonth, Function.identity()));
+    }
+
+    public StatsGeneration generation(String yearMonth) {
+        return find(yearMonth)
+                .map(month -> new StatsGeneration(month.getActiveVersion(), materializedGroupBys(month)))
+                .orElseGet(() -> new StatsGeneration(INITIAL_VERSION, EnumSet.allOf(StatsGroupBy.class)));
+    }
+
+    public long active(String yearMonth) {
+        return generation(yearMonth).version();
+    }
+
+    public Set<StatsGroupBy> materialized(String yearMonth) {
+        return generation(yearMonth).groupBys();
+    }
+
+    /**
+     * The imports whose rows the active generation was rebuilt from.
+     */
+    public Set<String> rebuiltFrom(String yearMonth) {
+        return find(yearMonth)
+                .map(StatsMonthDocument::getRebuiltFromImports)
+                .orElse(Set.of());
+    }
+
+    /**
+     * The version readers of the month use; months without a document are at version 0.
+     */
+    static long activeVersion(StatsMonthDocument month) {
+        return month == null ? INITIAL_VERSION : month.getActiveVersion();
+    }
+
+    /**
+     * Every month, holding only the fields that identify the state of its stats.
+     */
+    List<StatsMonthDocument> findStates() {
+        Query query = new Query();
+        query.fields().include("activeVersion", "statsRevision", "statsEpoch");
+        return mongoTemplate.find(query, StatsMonthDocument.class);
+    }
+
+    public List<StatsMonthDocument> findStale() {
+        return mongoTemplate.find(query(where("statsStatus").is(StatsStatus.STALE)), StatsMonthDocument.class);
+    }
+
+    /**
+     * Records that the month's transactions changed and returns the new revision, to be passed to
+     * {@link #markFresh} once the stats include the change.
+     */
+    public long markStale(String yearMonth) {
+        StatsMonthDocument month = mongoTemplate.findAndModify(
+                query(where("_id").is(yearMonth)),
+                new Update().inc("statsRevision", 1)
+                        .inc("statsEpoch", 1)
+                        .set("statsStatus", StatsStatus.STALE)
+                        .setOnInsert("activeVersion", INITIAL_VERSION)
+                        .setOnInsert("materializedGroupBys", properties.onDemand().eagerGroupBys()),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                StatsMonthDocument.class);
+        changed(yearMonth);
+        return month.getStatsRevision();
+    }
+
+    /**
+     * Marks the month fresh if {@code revision} is still its latest; a newer change keeps it stale.
+     */
+    public boolean markFresh(String yearMonth, long revision) {
+        boolean fresh = mongoTemplate.updateFirst(
+                query(where("_id").is(yearMonth).and("statsRevision").is(revision)),
+                new Update().set("statsStatus", StatsStatus.FRESH)
+                        .set("statsAsOf", Instant.now())
+                        .inc("statsEpoch", 1),
+                StatsMonthDocument.class
+        ).getModifiedCount() > 0;
+        if (fresh) {
+            changed(yearMonth);
+        }
+        return fresh;
+    }
+
+    /**
+     * Records that the month's stats or rollups were changed in place, once the write is done.
+     */
+    void touch(String yearMonth) {
+        mongoTemplate.updateFirst(query(where("_id").is(yearMonth)), new Update().inc("statsEpoch", 1),
+                StatsMonthDocument.class);
+        changed(yearMonth);
+    }
+
+    /**
+     * Hands out a version no other rebuild of the month has used, to build a new generation under.
+     */
+    long reserve(String yearMonth) {
+        StatsMonthDocument month = mongoTemplate.findAndModify(
+                query(where("_id").is(yearMonth)),
+                new Update().inc("lastVersion", 1).setOnInsert("activeVersion", INITIAL_VERSION),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                StatsMonthDocument.class);
+        return month.getLastVersion();
+    }
+
+    /**
+     * Points readers at {@code version}, holding {@code groupBys} of {@code importJobIds}, in a
+     * single document update, unless a newer generation was activated in the meantime.
+     */
+    boolean activate(String yearMonth, long version, Set<StatsGroupBy> groupBys, Collection<String> importJobIds) {
+        boolean activated = mongoTemplate.updateFirst(
+                query(where("_id").is(yearMonth).and("activeVersion").lt(version)),
+                new Update().set("activeVersion", version)
+                        .set("materializedGroupBys", groupBys)
+                        .set("rebuiltFromImports", importJobIds)
+                        .set("retiredAt", Instant.now())
+                        .inc("statsEpoch", 1),
+                StatsMonthDocument.class
+        ).getModifiedCount() > 0;
+        if (activated) {
+            changed(yearMonth);
+        }
+        return activated;
+    }
+
+    private void changed(String yearMonth) {
+        eventPublisher.publishEvent(new StatsMonthChanged(yearMonth));
+    }
+
+    private static Set<StatsGroupBy> materializedGroupBys(StatsMonthDocument month) {
+        Set<StatsGroupBy> groupBys = EnumSet.of(StatsGroupBy.MONTH);
+        groupBys.addAll(month.getMaterializedGroupBys() == null
+                ? EnumSet.allOf(StatsGroupBy.class)
+                : month.getMaterializedGroupBys());
+        return groupBys;
+    }
+}
@@ -0,0 +1,16 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class StatsNotReadyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public StatsNotReadyException(String yearMonth, StatsGroupBy groupBy, Duration retryAfter) {
+        super("Stats by " + groupBy + " for " + yearMonth + " are still being prepared, retry later");
+        this.retryAfter = retryAfter;
+    }
+}
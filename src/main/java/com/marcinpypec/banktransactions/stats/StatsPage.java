@@ -0,0 +1,11 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.util.List;
+
+/**
+ * One page of stats rows; {@code nextCursor} is null on the last page.
+ */
+public record StatsPage(
+        List<TransactionStatsRow> rows,
+        String nextCursor
+) {}
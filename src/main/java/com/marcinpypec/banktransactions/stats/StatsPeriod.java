@@ -0,0 +1,36 @@
+package com.marcinpypec.banktransactions.stats;
+
+import java.time.YearMonth;
+
+/**
+ * Calendar periods that month stats are rolled up into.
+ */
+public enum StatsPeriod {
+
+    QUARTER(3),
+    YEAR(12);
+
+    private final int months;
+
+    StatsPeriod(int months) {
+        this.months = months;
+    }
+
+    public YearMonth firstMonth(YearMonth month) {
+        return YearMonth.of(month.getYear(), (month.getMonthValue() - 1) / months * months + 1);
+    }
+
+    public YearMonth lastMonth(YearMonth month) {
+        return firstMonth(month).plusMonths(months - 1);
+    }
+
+    /**
+     * The period holding {@code month}, e.g. {@code 2026-Q1} or {@code 2026}.
+     */
+    public String label(YearMonth month) {
+        return switch (this) {
+            case QUARTER -> month.getYear() + "-Q" + ((month.getMonthValue() - 1) / months + 1);
+            case YEAR -> String.valueOf(month.getYear());
+        };
+    }
+}
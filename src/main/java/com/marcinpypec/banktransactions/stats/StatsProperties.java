@@ -0,0 +1,68 @@
+package com.marcinpypec.banktransactions.stats;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+@ConfigurationProperties("app.stats")
+public record StatsProperties(
+        Duration gcInterval,
+        Duration gcGracePeriod,
+        Materialization materialization,
+        OnDemand onDemand,
+        Cache cache,
+        Streaming streaming
+) {
+
+    /**
+     * A failed run is retried after {@code retryDelay}, doubled after each further failure of the
+     * month up to {@code maxRetryDelay}.
+     */
+    public record Materialization(
+            int concurrency,
+            Duration debounce,
+            Duration retryDelay,
+            Duration maxRetryDelay
+    ) {}
+
+    /**
+     * Query results are cached in memory up to {@code maxRows} rows in total, keyed on month
+     * states re-read every {@code refreshInterval}.
+     */
+    public record Cache(
+            long maxRows,
+            Duration refreshInterval
+    ) {}
+
+    /**
+     * An NDJSON stats response holds at most {@code maxRows} rows.
+     */
+    public record Streaming(
+            int maxRows
+    ) {}
+
+    /**
+     * Group-bys that are only materialised for a month once it is queried by them. MONTH backs
+     * the monthly totals and is always kept up to date.
+     */
+    public record OnDemand(
+            Set<StatsGroupBy> groupBys,
+            Duration timeout,
+            Duration retryAfter
+    ) {
+        public OnDemand {
+            groupBys = groupBys == null ? Set.of() : groupBys;
+            if (groupBys.contains(StatsGroupBy.MONTH)) {
+                throw new IllegalArgumentException("MONTH stats cannot be on-demand");
+            }
+        }
+
+        public Set<StatsGroupBy> eagerGroupBys() {
+            Set<StatsGroupBy> eager = EnumSet.allOf(StatsGroupBy.class);
+            eager.removeAll(groupBys);
+            return eager;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Months that got their stats before rollups existed are rolled up once on startup; afterwards
+ * every change of a month refreshes its rollups.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatsRollupBackfill {
+
+    private final MongoTemplate mongoTemplate;
+    private final StatsRollupRepository rollupRepository;
+    private final TransactionStatsMaterializer materializer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rollUpMissingQuarters() {
+        Set<YearMonth> quarters = new TreeSet<>();
+        for (String yearMonth : mongoTemplate.findDistinct(new Query(), "yearMonth", TransactionStatsDocument.class, String.class)) {
+            quarters.add(StatsPeriod.QUARTER.firstMonth(YearMonth.parse(yearMonth)));
+        }
+        int rolledUp = 0;
+        for (YearMonth quarter : quarters) {
+            if (!rollupRepository.existsByLevelAndPeriod(StatsPeriod.QUARTER, StatsPeriod.QUARTER.label(quarter))) {
+                materializer.rollUp(quarter.toString());
+                rolledUp++;
+            }
+        }
+        if (rolledUp > 0) {
+            log.info("Stats rollups backfilled: quarters={}", rolledUp);
+        }
+    }
+}
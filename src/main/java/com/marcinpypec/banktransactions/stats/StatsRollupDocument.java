@@ -0,0 +1,44 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Sum of the active month stats of one quarter or year, kept by
+ * {@link TransactionStatsMaterializer#rollUp}. {@code groupBy} is MONTH for the period's totals
+ * (key {@code TOTAL}) or CATEGORY, which is rolled up by year only.
+ */
+@Document("stats_rollups")
+@CompoundIndex(name = "ux_rollup", def = "{'level': 1, 'period': 1, 'groupBy': 1, 'key': 1, 'currency': 1}", unique = true)
+@CompoundIndex(name = "ix_rollup_range", def = "{'level': 1, 'groupBy': 1, 'fromMonth': 1, 'toMonth': 1}")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsRollupDocument {
+
+    @Id
+    private String id;
+
+    private StatsPeriod level;
+    private String period;
+    private String fromMonth;
+    private String toMonth;
+    private String groupBy;
+    private String key;
+    private String currency;
+
+    private long count;
+    private BigDecimal totalAmount;
+    private Instant refreshedAt;
+}
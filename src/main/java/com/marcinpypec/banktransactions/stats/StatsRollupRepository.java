@@ -0,0 +1,16 @@
+package com.marcinpypec.banktransactions.stats;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface StatsRollupRepository extends MongoRepository<StatsRollupDocument, String> {
+
+    /**
+     * Rollups of the periods that lie entirely within {@code [from, to]}.
+     */
+    List<StatsRollupDocument> findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(
+            StatsPeriod level, String groupBy, String from, String to);
+
+    boolean existsByLevelAndPeriod(StatsPeriod level, String period);
+}
@@ -0,0 +1,10 @@
+package com.marcinpypec.banktransactions.stats;
+
+/**
+ * Whether a month's stats include every completed import of the month. A month is {@code STALE}
+ * from the moment an import finishes writing until its rows have been added to the stats.
+ */
+public enum StatsStatus {
+    FRESH,
+    STALE
+}
@@ -3,31 +3,75 @@ package com.marcinpypec.banktransactions.stats;
 import com.marcinpypec.banktransactions.api.StatsSort;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1/stats")
 @RequiredArgsConstructor
 public class TransactionStatsController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TransactionStatsService statsService;
+    private final StatsProperties properties;
+    private final JsonMapper jsonMapper;
 
+    /**
+     * Rows come in pages of {@code limit}; when there are more, the response carries a
+     * {@code X-Next-Cursor} header to pass back as {@code cursor} for the next page.
+     */
     @GetMapping
-    public List<TransactionStatsRow> getStats(
+    public ResponseEntity<List<TransactionStatsRow>> getStats(
             @RequestParam("yearMonth")
             @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "yearMonth must be yyyy-MM")
             String yearMonth,
             @RequestParam("groupBy") StatsGroupBy groupBy,
             @RequestParam(value = "limit", required = false, defaultValue = "50") int limit,
-            @RequestParam(value = "sort", required = false, defaultValue = "TOTAL_DESC") StatsSort sort
+            @RequestParam(value = "sort", required = false, defaultValue = "TOTAL_DESC") StatsSort sort,
+            @RequestParam(value = "cursor", required = false) String cursor
     ) {
-        validateLimit(limit);
-        return statsService.getStats(yearMonth, groupBy, limit, sort);
+        validateLimit(limit, 500);
+        StatsPage page = statsService.getStats(yearMonth, groupBy, limit, sort, cursor);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.rows());
+    }
+
+    /**
+     * The same rows as NDJSON, written as they are read from Mongo. {@code limit} is capped at
+     * {@code app.stats.streaming.max-rows}, which is also used without it.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam("yearMonth")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "yearMonth must be yyyy-MM")
+            String yearMonth,
+            @RequestParam("groupBy") StatsGroupBy groupBy,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "sort", required = false, defaultValue = "TOTAL_DESC") StatsSort sort,
+            @RequestParam(value = "cursor", required = false) String cursor
+    ) {
+        int maxRows = properties.streaming().maxRows();
+        int rows = limit == null ? maxRows : limit;
+        validateLimit(rows, maxRows);
+        return ndjson(statsService.streamStats(yearMonth, groupBy, rows, sort, cursor));
     }
 
     @GetMapping("/monthly")
@@ -43,15 +87,90 @@ public class TransactionStatsController {
         return statsService.getMonthlyStats(from, to);
     }
 
-    private static void validateLimit(int limit) {
-        if (limit < 1 || limit > 500) {
-            throw new IllegalArgumentException("limit must be between 1 and 500");
+    @GetMapping(value = "/monthly", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMonthlyStats(
+            @RequestParam("from")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "from must be yyyy-MM")
+            String from,
+            @RequestParam("to")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "to must be yyyy-MM")
+            String to
+    ) {
+        validateRange(from, to);
+        return ndjson(statsService.streamMonthlyStats(from, to));
+    }
+
+    /**
+     * Totals per quarter or year instead of per month; periods cut by the range are summed over
+     * the months inside it only.
+     */
+    @GetMapping("/rollups")
+    public List<RollupStatsRow> getRollups(
+            @RequestParam("from")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "from must be yyyy-MM")
+            String from,
+            @RequestParam("to")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "to must be yyyy-MM")
+            String to,
+            @RequestParam("period") StatsPeriod period,
+            @RequestParam(value = "groupBy", required = false, defaultValue = "MONTH") StatsGroupBy groupBy
+    ) {
+        validateRange(from, to);
+        return statsService.getRollups(from, to, period, groupBy);
+    }
+
+    @GetMapping("/status")
+    public StatsMonthStatus getStatus(
+            @RequestParam("yearMonth")
+            @Pattern(regexp = "^\\d{4}-\\d{2}$", message = "yearMonth must be yyyy-MM")
+            String yearMonth
+    ) {
+        return statsService.getStatus(yearMonth);
+    }
+
+    /**
+     * One JSON document per line; the first line is flushed right away, the rest as the
+     * response buffer fills.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<?> rows) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeLines(rows, out));
+    }
+
+    private void writeLines(Stream<?> rows, OutputStream out) throws IOException {
+        try (rows) {
+            Iterator<?> it = rows.iterator();
+            for (boolean first = true; it.hasNext(); first = false) {
+                out.write(jsonMapper.writeValueAsBytes(it.next()));
+                out.write('\n');
+                if (first) {
+                    out.flush();
+                }
+            }
+        }
+    }
+
+    private static void validateLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new IllegalArgumentException("limit must be between 1 and " + max);
         }
     }
 
+    /**
+     * The pattern lets through months that do not exist, like {@code 2026-13}.
+     */
     private static void validateRange(String from, String to) {
-        if (from.compareTo(to) > 0) {
+        if (parseMonth("from", from).isAfter(parseMonth("to", to))) {
             throw new IllegalArgumentException("from must be <= to");
         }
     }
+
+    private static YearMonth parseMonth(String name, String value) {
+        try {
+            return YearMonth.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " is not a valid month: " + value);
+        }
+    }
 }
@@ -12,7 +12,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 
 @Document("transaction_stats")
-@CompoundIndex(name = "ux_stats", def = "{'yearMonth': 1, 'groupBy': 1, 'key': 1, 'currency': 1}", unique = true)
+@CompoundIndex(name = "ux_stats_version", def = "{'yearMonth': 1, 'version': 1, 'groupBy': 1, 'key': 1, 'currency': 1}", unique = true)
+@CompoundIndex(name = "ix_stats_top", def = "{'yearMonth': 1, 'version': 1, 'groupBy': 1, 'totalAmount': 1, 'key': 1, 'currency': 1, 'count': 1}")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,6 +25,7 @@ public class TransactionStatsDocument {
     private String id;
 
     private String yearMonth;
+    private long version;
     private String groupBy;
     private String key;
     private String currency;
@@ -1,96 +1,235 @@
 package com.marcinpypec.banktransactions.stats;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
-import org.springframework.data.mongodb.core.aggregation.GroupOperation;
-import org.springframework.data.mongodb.core.aggregation.MatchOperation;
-import org.springframework.data.mongodb.core.aggregation.ProjectionOperation;
-import org.springframework.data.mongodb.core.aggregation.SortOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
-import static org.springframework.data.mongodb.core.aggregation.Aggregation.sort;
-import static org.springframework.data.mongodb.core.aggregation.Fields.fields;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionStatsMaterializer {
 
-    private final MongoTemplate mongoTemplate;
-    private final TransactionStatsRepository statsRepository;
-
-    public void materializeForMonth(String yearMonth) {
-        statsRepository.deleteByYearMonth(yearMonth);
-
-        saveGroup(yearMonth, StatsGroupBy.CATEGORY, "category");
-        saveGroup(yearMonth, StatsGroupBy.IBAN, "iban");
+    static final String MONTH_TOTAL_KEY = "TOTAL";
+    private static final String TRANSACTIONS_COLLECTION = "transactions";
+    private static final String STATS_COLLECTION = "transaction_stats";
 
-        saveMonthlyTotals(yearMonth);
+    private final MongoTemplate mongoTemplate;
+    private final StatsMonths statsMonths;
+    private final StatsLock statsLock;
+
+    /**
+     * Rebuilds the month's stats by {@code groupBys} from the transactions of the given imports
+     * with one aggregation that scans them once and writes the results into
+     * {@code transaction_stats} server-side. The result is a new generation that readers switch to
+     * only once it is complete; the one it replaces is removed later by
+     * {@link StatsGenerationCollector}.
+     */
+    public void materializeForMonth(String yearMonth, Collection<String> importJobIds, Set<StatsGroupBy> groupBys) {
+        long version = statsMonths.reserve(yearMonth);
+        runStatsPipeline(where("importJobId").in(importJobIds), yearMonth, version, groupBys, "replace");
+        if (statsMonths.activate(yearMonth, version, groupBys, importJobIds)) {
+            log.info("Stats generation activated: yearMonth={}, version={}", yearMonth, version);
+        } else {
+            log.warn("Stats generation superseded before activation: yearMonth={}, version={}", yearMonth, version);
+        }
     }
 
-    private void saveGroup(String yearMonth, StatsGroupBy groupBy, String groupField) {
-        MatchOperation match = match(where("yearMonth").is(yearMonth));
-
-        GroupOperation group = group(fields().and(groupField, "$" + groupField).and("currency", "$currency"))
-                .count().as("count")
-                .sum("amount").as("totalAmount");
-
-        ProjectionOperation project = project()
-                .andExclude("_id")
-                .and(context -> new Document("$literal", yearMonth)).as("yearMonth")
-                .and(context -> new Document("$literal", groupBy.name())).as("groupBy")
-                .and("_id." + groupField).as("key")
-                .and("_id.currency").as("currency")
-                .and("count").as("count")
-                .and("totalAmount").as("totalAmount");
-
-        SortOperation sort = sort(Sort.by(Sort.Direction.DESC, "totalAmount"));
+    /**
+     * Adds the rows of one import to the month's stats, reading only that import's transactions
+     * and adding to matching stats inside the {@code $merge}. Applying the same import twice
+     * counts it twice. Returns whether the generation written to is still the active one, see
+     * {@link #applyDelta}.
+     */
+    public boolean applyImport(String yearMonth, String importJobId) {
+        StatsGeneration generation = statsMonths.generation(yearMonth);
+        runStatsPipeline(where("importJobId").is(importJobId), yearMonth, generation.version(), generation.groupBys(), List.of(
+                new Document("$addFields", new Document()
+                        .append("count", new Document("$add", List.of("$count", "$$new.count")))
+                        .append("totalAmount", new Document("$add", List.of("$totalAmount", "$$new.totalAmount"))))));
+        statsMonths.touch(yearMonth);
+        return stillActive(yearMonth, generation.version());
+    }
 
-        Aggregation agg = newAggregation(match, group, project, sort);
+    /**
+     * Adds stats accumulated while an import was parsed, without reading its transactions back.
+     * Only the group-bys the month holds are updated; {@code delta} must track all of them.
+     * Returns {@code false} if another generation was activated while the write ran: the delta
+     * went to a generation that is going away, and the month has to be rebuilt.
+     */
+    public boolean applyDelta(String yearMonth, StatsAccumulator delta) {
+        StatsGeneration generation = statsMonths.generation(yearMonth);
+        increment(yearMonth, generation.version(), delta.toDeltas(yearMonth, generation.groupBys()));
+        return stillActive(yearMonth, generation.version());
+    }
 
-        List<TransactionStatsDocument> docs = mongoTemplate
-                .aggregate(agg, "transactions", TransactionStatsDocument.class)
-                .getMappedResults();
+    /**
+     * Recomputes the quarter and year rollups holding the month from the active generations of
+     * their months. Only month-level stats are read, at most twelve months of them, so this runs
+     * after every change of the month. Refreshes of a year are serialised across instances, so
+     * each one sees the months changed by the others and removes only keys it saw disappear.
+     */
+    public void rollUp(String yearMonth) {
+        YearMonth month = YearMonth.parse(yearMonth);
+        statsLock.runLocked(StatsLock.rollups(StatsPeriod.YEAR.label(month)), () -> {
+            rollUp(StatsPeriod.QUARTER, month, List.of(StatsGroupBy.MONTH));
+            rollUp(StatsPeriod.YEAR, month, List.of(StatsGroupBy.MONTH, StatsGroupBy.CATEGORY));
+        });
+        statsMonths.touch(yearMonth);
+    }
 
-        if (!docs.isEmpty()) {
-            statsRepository.saveAll(docs);
+    private void rollUp(StatsPeriod level, YearMonth month, List<StatsGroupBy> groupBys) {
+        long start = System.nanoTime();
+        YearMonth first = level.firstMonth(month);
+        YearMonth last = level.lastMonth(month);
+        String period = level.label(month);
+        Map<String, StatsMonthDocument> months = statsMonths.find(first.toString(), last.toString());
+        List<Criteria> generations = new ArrayList<>();
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            generations.add(where("yearMonth").is(m.toString())
+                    .and("version").is(StatsMonths.activeVersion(months.get(m.toString()))));
         }
+        Aggregation agg = newAggregation(
+                match(new Criteria().orOperator(generations)
+                        .and("groupBy").in(groupBys.stream().map(StatsGroupBy::name).toList())),
+                group("groupBy", "key", "currency").sum("count").as("count").sum("totalAmount").as("totalAmount"),
+                project("groupBy", "key", "currency", "count", "totalAmount").andExclude("_id"));
+        List<TransactionStatsDocument> totals =
+                mongoTemplate.aggregate(agg, STATS_COLLECTION, TransactionStatsDocument.class).getMappedResults();
+
+        Instant refreshedAt = Instant.now();
+        if (!totals.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StatsRollupDocument.class);
+            for (TransactionStatsDocument total : totals) {
+                bulk.upsert(
+                        query(where("level").is(level)
+                                .and("period").is(period)
+                                .and("groupBy").is(total.getGroupBy())
+                                .and("key").is(total.getKey())
+                                .and("currency").is(total.getCurrency())),
+                        new Update()
+                                .set("fromMonth", first.toString())
+                                .set("toMonth", last.toString())
+                                .set("count", total.getCount())
+                                .set("totalAmount", total.getTotalAmount())
+                                .set("refreshedAt", refreshedAt));
+            }
+            bulk.execute();
+        }
+        mongoTemplate.remove(query(where("level").is(level).and("period").is(period).and("refreshedAt").ne(refreshedAt)),
+                StatsRollupDocument.class);
+        log.debug("Stats rollup refreshed: period={}, keys={}, tookMs={}",
+                period, totals.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
-    private void saveMonthlyTotals(String yearMonth) {
-        MatchOperation match = match(where("yearMonth").is(yearMonth));
-
-        GroupOperation group = group(fields().and("currency", "$currency"))
-                .count().as("count")
-                .sum("amount").as("totalAmount");
+    private boolean stillActive(String yearMonth, long version) {
+        long active = statsMonths.active(yearMonth);
+        if (active != version) {
+            log.warn("Stats written to superseded generation: yearMonth={}, version={}, activeVersion={}",
+                    yearMonth, version, active);
+            return false;
+        }
+        return true;
+    }
 
-        ProjectionOperation project = project()
-                .andExclude("_id")
-                .and(context -> new Document("$literal", yearMonth)).as("yearMonth")
-                .and(context -> new Document("$literal", StatsGroupBy.MONTH.name())).as("groupBy")
-                .and(context -> new Document("$literal", "TOTAL")).as("key")
-                .and("_id").as("currency")
-                .and("count").as("count")
-                .and("totalAmount").as("totalAmount");
+    private void increment(String yearMonth, long version, List<TransactionStatsDocument> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionStatsDocument.class);
+        for (TransactionStatsDocument delta : deltas) {
+            bulk.upsert(
+                    query(where("yearMonth").is(yearMonth)
+                            .and("version").is(version)
+                            .and("groupBy").is(delta.getGroupBy())
+                            .and("key").is(delta.getKey())
+                            .and("currency").is(delta.getCurrency())),
+                    new Update()
+                            .inc("count", delta.getCount())
+                            .inc("totalAmount", delta.getTotalAmount()));
+        }
+        long start = System.nanoTime();
+        bulk.execute();
+        statsMonths.touch(yearMonth);
+        log.info("Stats delta applied: yearMonth={}, version={}, keys={}, tookMs={}",
+                yearMonth, version, deltas.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-        Aggregation agg = newAggregation(match, group, project);
+    /**
+     * Every matched row is fanned out to its key in each of {@code groupBys} and grouped once, so
+     * all groupings come from a single collection scan. Grouped rows stream straight into
+     * {@code $merge}; a {@code $facet} would have to fit every grouping into one 16MB document.
+     */
+    private void runStatsPipeline(Criteria rows, String yearMonth, long version, Set<StatsGroupBy> groupBys,
+                                  Object whenMatched) {
+        long start = System.nanoTime();
+        Aggregation agg = newAggregation(
+                match(rows),
+                stage("$project", new Document("_id", 0)
+                        .append("currency", 1)
+                        .append("amount", 1)
+                        .append("keys", groupKeys(groupBys))),
+                stage("$unwind", "$keys"),
+                stage("$group", new Document("_id", new Document()
+                        .append("groupBy", "$keys.groupBy")
+                        .append("key", "$keys.key")
+                        .append("currency", "$currency"))
+                        .append("count", new Document("$sum", 1))
+                        .append("totalAmount", new Document("$sum", "$amount"))),
+                stage("$project", new Document("_id", 0)
+                        .append("yearMonth", new Document("$literal", yearMonth))
+                        .append("version", new Document("$literal", version))
+                        .append("groupBy", "$_id.groupBy")
+                        .append("key", "$_id.key")
+                        .append("currency", "$_id.currency")
+                        .append("count", 1)
+                        .append("totalAmount", 1)),
+                stage("$merge", new Document("into", STATS_COLLECTION)
+                        .append("on", List.of("yearMonth", "version", "groupBy", "key", "currency"))
+                        .append("whenMatched", whenMatched)
+                        .append("whenNotMatched", "insert"))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        mongoTemplate.aggregate(agg, TRANSACTIONS_COLLECTION, Document.class);
+        log.info("Stats pipeline finished: yearMonth={}, version={}, groupBys={}, tookMs={}",
+                yearMonth, version, groupBys, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-        List<TransactionStatsDocument> docs =
-                mongoTemplate.aggregate(agg, "transactions",
-                                TransactionStatsDocument.class)
-                        .getMappedResults();
+    private static List<Document> groupKeys(Set<StatsGroupBy> groupBys) {
+        return groupBys.stream()
+                .map(groupBy -> new Document("groupBy", new Document("$literal", groupBy.name()))
+                        .append("key", switch (groupBy) {
+                            case CATEGORY -> "$category";
+                            case IBAN -> "$iban";
+                            case MONTH -> new Document("$literal", MONTH_TOTAL_KEY);
+                        }))
+                .toList();
+    }
 
-        if (!docs.isEmpty()) {
-            statsRepository.saveAll(docs);
-        }
+    private static AggregationOperation stage(String operator, Object spec) {
+        return context -> new Document(operator, spec);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.marcinpypec.banktransactions.stats;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface TransactionStatsRepositoryCustom {
+
+    /**
+     * Up to {@code limit} rows of the generation ordered by (totalAmount, key, currency) in
+     * {@code direction}, starting after {@code after} or from the first row when it is null.
+     */
+    List<TransactionStatsRow> findPage(String yearMonth, long version, String groupBy, Sort.Direction direction,
+                                       StatsCursor after, int limit);
+
+    /**
+     * Like {@link #findPage}, but reads the rows lazily from a cursor; {@code limit} 0 means all
+     * of them. The stream must be closed.
+     */
+    Stream<TransactionStatsRow> streamPage(String yearMonth, long version, String groupBy, Sort.Direction direction,
+                                           StatsCursor after, int limit);
+
+    /**
+     * The rows of {@code groupBy} of the months in {@code [from, to]}, ordered by month: of the
+     * generation given in {@code versions} for the months listed there, of version 0 for the rest.
+     */
+    List<TransactionStatsDocument> findGenerations(String groupBy, String from, String to, Map<String, Long> versions);
+
+    /**
+     * Like {@link #findGenerations}, but reads the rows lazily from a cursor. The stream must be
+     * closed.
+     */
+    Stream<TransactionStatsDocument> streamGenerations(String groupBy, String from, String to,
+                                                       Map<String, Long> versions);
+}
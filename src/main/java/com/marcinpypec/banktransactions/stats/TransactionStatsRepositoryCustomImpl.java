@@ -0,0 +1,95 @@
+package com.marcinpypec.banktransactions.stats;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Pages seek past the cursor with a range on the {@code ix_stats_top} index instead of skipping
+ * the rows before it, so a deep page costs the same as the first. The index also holds every
+ * returned field, so no documents are read.
+ */
+@RequiredArgsConstructor
+class TransactionStatsRepositoryCustomImpl implements TransactionStatsRepositoryCustom {
+
+    static final int STREAM_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<TransactionStatsRow> findPage(String yearMonth, long version, String groupBy, Sort.Direction direction,
+                                              StatsCursor after, int limit) {
+        return mongoTemplate.query(TransactionStatsDocument.class)
+                .as(TransactionStatsRow.class)
+                .matching(pageQuery(yearMonth, version, groupBy, direction, after, limit))
+                .all();
+    }
+
+    @Override
+    public Stream<TransactionStatsRow> streamPage(String yearMonth, long version, String groupBy,
+                                                  Sort.Direction direction, StatsCursor after, int limit) {
+        return mongoTemplate.query(TransactionStatsDocument.class)
+                .as(TransactionStatsRow.class)
+                .matching(pageQuery(yearMonth, version, groupBy, direction, after, limit)
+                        .cursorBatchSize(STREAM_BATCH_SIZE))
+                .stream();
+    }
+
+    @Override
+    public List<TransactionStatsDocument> findGenerations(String groupBy, String from, String to,
+                                                          Map<String, Long> versions) {
+        return mongoTemplate.find(generationsQuery(groupBy, from, to, versions), TransactionStatsDocument.class);
+    }
+
+    @Override
+    public Stream<TransactionStatsDocument> streamGenerations(String groupBy, String from, String to,
+                                                              Map<String, Long> versions) {
+        return mongoTemplate.stream(generationsQuery(groupBy, from, to, versions).cursorBatchSize(STREAM_BATCH_SIZE),
+                TransactionStatsDocument.class);
+    }
+
+    /**
+     * One {@code (yearMonth, version, groupBy)} clause per listed month and one for version 0 of
+     * the rest of the range, each served by {@code ux_stats_version}, so rows of other
+     * generations are never read.
+     */
+    private static Query generationsQuery(String groupBy, String from, String to, Map<String, Long> versions) {
+        List<Criteria> generations = new ArrayList<>();
+        versions.forEach((yearMonth, version) -> generations.add(
+                where("yearMonth").is(yearMonth).and("version").is(version).and("groupBy").is(groupBy)));
+        generations.add(where("yearMonth").gte(from).lte(to).nin(versions.keySet())
+                .and("version").is(StatsMonths.INITIAL_VERSION).and("groupBy").is(groupBy));
+        return query(new Criteria().orOperator(generations)).with(Sort.by("yearMonth"));
+    }
+
+    private static Query pageQuery(String yearMonth, long version, String groupBy, Sort.Direction direction,
+                                   StatsCursor after, int limit) {
+        Criteria criteria = where("yearMonth").is(yearMonth).and("version").is(version).and("groupBy").is(groupBy);
+        if (after != null) {
+            criteria.orOperator(
+                    past(where("totalAmount"), after.totalAmount(), direction),
+                    past(where("totalAmount").is(after.totalAmount()).and("key"), after.key(), direction),
+                    past(where("totalAmount").is(after.totalAmount()).and("key").is(after.key()).and("currency"),
+                            after.currency(), direction));
+        }
+        Query query = query(criteria)
+                .with(Sort.by(direction, "totalAmount", "key", "currency"))
+                .limit(limit);
+        query.fields().include("key", "currency", "count", "totalAmount").exclude("_id");
+        return query;
+    }
+
+    private static Criteria past(Criteria field, Object value, Sort.Direction direction) {
+        return direction.isAscending() ? field.gt(value) : field.lt(value);
+    }
+}
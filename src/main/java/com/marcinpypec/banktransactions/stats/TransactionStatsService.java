@@ -5,34 +5,224 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionStatsService {
 
+    private static final Comparator<RollupKey> ROLLUP_ORDER = Comparator.comparing(RollupKey::period)
+            .thenComparing(RollupKey::key)
+            .thenComparing(RollupKey::currency);
+
     private final TransactionStatsRepository statsRepository;
+    private final StatsMonths statsMonths;
+    private final GroupByMaterializer groupByMaterializer;
+    private final StatsProperties properties;
+    private final StatsCache statsCache;
+    private final StatsRollupRepository rollupRepository;
 
-    public List<TransactionStatsRow> getStats(String yearMonth, StatsGroupBy groupBy, int limit, StatsSort sort) {
-        var results = statsRepository.findByYearMonthAndGroupBy(yearMonth, groupBy.name(), toSort(sort));
-        return results.stream()
-                .limit(limit)
-                .map(d -> new TransactionStatsRow(d.getKey(), d.getCurrency(), d.getCount(), d.getTotalAmount()))
-                .toList();
+    /**
+     * @param cursor the {@code nextCursor} of the previous page, or null for the first page
+     */
+    public StatsPage getStats(String yearMonth, StatsGroupBy groupBy, int limit, StatsSort sort, String cursor) {
+        StatsCursor after = decodeCursor(cursor, yearMonth, groupBy, sort);
+        // one row more than asked for tells whether there is a next page
+        List<TransactionStatsRow> rows = statsCache.stats(yearMonth, groupBy, limit, sort, after,
+                () -> loadStats(yearMonth, groupBy, limit + 1, sort, after));
+        if (rows.size() <= limit) {
+            return new StatsPage(rows, null);
+        }
+        List<TransactionStatsRow> page = rows.subList(0, limit);
+        return new StatsPage(page, StatsCursor.after(yearMonth, groupBy, sort, page.getLast()).encode());
+    }
+
+    /**
+     * The first {@code limit} rows from {@code cursor} on, read lazily and not cached. An
+     * on-demand group-by is materialised before this returns. The stream must be closed.
+     */
+    public Stream<TransactionStatsRow> streamStats(String yearMonth, StatsGroupBy groupBy, int limit, StatsSort sort,
+                                                   String cursor) {
+        StatsCursor after = decodeCursor(cursor, yearMonth, groupBy, sort);
+        long version = materialized(yearMonth, groupBy).version();
+        return statsRepository.streamPage(yearMonth, version, groupBy.name(), toDirection(sort), after, limit);
+    }
+
+    private static StatsCursor decodeCursor(String cursor, String yearMonth, StatsGroupBy groupBy, StatsSort sort) {
+        StatsCursor after = cursor == null ? null : StatsCursor.decode(cursor);
+        if (after != null && !after.matches(yearMonth, groupBy, sort)) {
+            throw new IllegalArgumentException("cursor belongs to a different query");
+        }
+        return after;
+    }
+
+    private List<TransactionStatsRow> loadStats(String yearMonth, StatsGroupBy groupBy, int limit, StatsSort sort,
+                                                StatsCursor after) {
+        long version = materialized(yearMonth, groupBy).version();
+        return statsRepository.findPage(yearMonth, version, groupBy.name(), toDirection(sort), after, limit);
+    }
+
+    /**
+     * The month's active generation, after materialising {@code groupBy} for it first if it is
+     * an on-demand group-by the month has not been queried by yet.
+     */
+    private StatsGeneration materialized(String yearMonth, StatsGroupBy groupBy) {
+        StatsGeneration generation = statsMonths.generation(yearMonth);
+        if (generation.groupBys().contains(groupBy)) {
+            return generation;
+        }
+        StatsProperties.OnDemand onDemand = properties.onDemand();
+        try {
+            groupByMaterializer.materialize(yearMonth, groupBy).get(onDemand.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatsNotReadyException(yearMonth, groupBy, onDemand.retryAfter());
+        } catch (ExecutionException | TimeoutException e) {
+            throw new StatsNotReadyException(yearMonth, groupBy, onDemand.retryAfter());
+        }
+        return statsMonths.generation(yearMonth);
     }
 
-    private Sort toSort(StatsSort sort) {
+    private static Sort.Direction toDirection(StatsSort sort) {
         return switch (sort) {
-            case TOTAL_DESC -> Sort.by(Sort.Direction.DESC, "totalAmount");
-            case TOTAL_ASC -> Sort.by(Sort.Direction.ASC, "totalAmount");
+            case TOTAL_DESC -> Sort.Direction.DESC;
+            case TOTAL_ASC -> Sort.Direction.ASC;
         };
     }
 
     public List<MonthlyStatsRow> getMonthlyStats(String from, String to) {
-        return statsRepository
-                .findByGroupByAndYearMonthBetweenOrderByYearMonthAsc(StatsGroupBy.MONTH.name(), from, to)
-                .stream()
-                .map(d -> new MonthlyStatsRow(d.getYearMonth(), d.getCurrency(), d.getCount(), d.getTotalAmount()))
+        return statsCache.monthly(from, to, () -> loadMonthlyStats(from, to));
+    }
+
+    private List<MonthlyStatsRow> loadMonthlyStats(String from, String to) {
+        Map<String, StatsMonthDocument> months = statsMonths.find(from, to);
+        return toMonthlyRows(statsRepository
+                .findGenerations(StatsGroupBy.MONTH.name(), from, to, activeVersions(months))
+                .stream(), months)
                 .toList();
     }
+
+    /**
+     * Like {@link #getMonthlyStats}, but read lazily and not cached. The stream must be closed.
+     */
+    public Stream<MonthlyStatsRow> streamMonthlyStats(String from, String to) {
+        Map<String, StatsMonthDocument> months = statsMonths.find(from, to);
+        return toMonthlyRows(statsRepository
+                .streamGenerations(StatsGroupBy.MONTH.name(), from, to, activeVersions(months)), months);
+    }
+
+    private static Stream<MonthlyStatsRow> toMonthlyRows(Stream<TransactionStatsDocument> stats,
+                                                         Map<String, StatsMonthDocument> months) {
+        return stats.map(d -> {
+            StatsMonthStatus status = toStatus(d.getYearMonth(), months.get(d.getYearMonth()));
+            return new MonthlyStatsRow(d.getYearMonth(), d.getCurrency(), d.getCount(), d.getTotalAmount(),
+                    status.statsStatus(), status.statsAsOf());
+        });
+    }
+
+    /**
+     * The active version of each month that has one; the other months are read at version 0. Only
+     * the active generation of a month is read, however many are kept during a grace period.
+     */
+    private static Map<String, Long> activeVersions(Map<String, StatsMonthDocument> months) {
+        Map<String, Long> versions = new HashMap<>();
+        months.forEach((yearMonth, month) -> versions.put(yearMonth, StatsMonths.activeVersion(month)));
+        return versions;
+    }
+
+    /**
+     * Totals of every quarter or year overlapping {@code [from, to]}, by MONTH (key
+     * {@code TOTAL}) or, for years, by CATEGORY. A period inside the range is read from its
+     * rollup; one cut by the range is summed from the quarters and months inside it, so the
+     * number of documents read follows the number of periods, not months.
+     */
+    public List<RollupStatsRow> getRollups(String from, String to, StatsPeriod level, StatsGroupBy groupBy) {
+        if (groupBy == StatsGroupBy.IBAN || (groupBy == StatsGroupBy.CATEGORY && level != StatsPeriod.YEAR)) {
+            throw new IllegalArgumentException("rollups are by MONTH, or by CATEGORY for YEAR");
+        }
+        return statsCache.rollups(from, to, level, groupBy, () -> loadRollups(from, to, level, groupBy));
+    }
+
+    private List<RollupStatsRow> loadRollups(String from, String to, StatsPeriod level, StatsGroupBy groupBy) {
+        Map<RollupKey, RollupStatsRow> totals = new TreeMap<>(ROLLUP_ORDER);
+        for (StatsRollupDocument rollup : rollupRepository
+                .findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(level, groupBy.name(), from, to)) {
+            addTotal(totals, new RollupStatsRow(rollup.getPeriod(), rollup.getFromMonth(), rollup.getToMonth(),
+                    rollup.getKey(), rollup.getCurrency(), rollup.getCount(), rollup.getTotalAmount()));
+        }
+        YearMonth first = YearMonth.parse(from);
+        YearMonth last = YearMonth.parse(to);
+        YearMonth headEnd = min(level.lastMonth(first), last);
+        if (!level.firstMonth(first).equals(first) || !level.lastMonth(first).equals(headEnd)) {
+            addPartialPeriod(totals, level, groupBy, first, headEnd);
+        }
+        YearMonth tailStart = level.firstMonth(last);
+        if (tailStart.isAfter(headEnd) && !level.lastMonth(last).equals(last)) {
+            addPartialPeriod(totals, level, groupBy, tailStart, last);
+        }
+        return List.copyOf(totals.values());
+    }
+
+    /**
+     * Sums the part {@code [from, to]} of one period from the quarter rollups inside it, where
+     * there are any, and the active stats of the remaining months.
+     */
+    private void addPartialPeriod(Map<RollupKey, RollupStatsRow> totals, StatsPeriod level, StatsGroupBy groupBy,
+                                  YearMonth from, YearMonth to) {
+        String period = level.label(from);
+        Set<String> covered = new HashSet<>();
+        if (level == StatsPeriod.YEAR && groupBy == StatsGroupBy.MONTH) {
+            for (StatsRollupDocument quarter : rollupRepository.findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(
+                    StatsPeriod.QUARTER, groupBy.name(), from.toString(), to.toString())) {
+                addTotal(totals, new RollupStatsRow(period, from.toString(), to.toString(),
+                        quarter.getKey(), quarter.getCurrency(), quarter.getCount(), quarter.getTotalAmount()));
+                for (YearMonth m = YearMonth.parse(quarter.getFromMonth()); !m.isAfter(YearMonth.parse(quarter.getToMonth())); m = m.plusMonths(1)) {
+                    covered.add(m.toString());
+                }
+            }
+        }
+        Map<String, StatsMonthDocument> months = statsMonths.find(from.toString(), to.toString());
+        statsRepository.findGenerations(groupBy.name(), from.toString(), to.toString(), activeVersions(months))
+                .stream()
+                .filter(d -> !covered.contains(d.getYearMonth()))
+                .forEach(d -> addTotal(totals, new RollupStatsRow(period, from.toString(), to.toString(),
+                        d.getKey(), d.getCurrency(), d.getCount(), d.getTotalAmount())));
+    }
+
+    private static void addTotal(Map<RollupKey, RollupStatsRow> totals, RollupStatsRow row) {
+        totals.merge(new RollupKey(row.period(), row.key(), row.currency()), row, (a, b) -> new RollupStatsRow(
+                a.period(), a.fromMonth(), a.toMonth(), a.key(), a.currency(),
+                a.count() + b.count(), a.totalAmount().add(b.totalAmount())));
+    }
+
+    private static YearMonth min(YearMonth a, YearMonth b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    public StatsMonthStatus getStatus(String yearMonth) {
+        return toStatus(yearMonth, statsMonths.find(yearMonth).orElse(null));
+    }
+
+    /**
+     * Months without a document predate freshness tracking and were kept up to date synchronously.
+     */
+    private static StatsMonthStatus toStatus(String yearMonth, StatsMonthDocument month) {
+        if (month == null || month.getStatsStatus() == null) {
+            return new StatsMonthStatus(yearMonth, StatsStatus.FRESH, null);
+        }
+        return new StatsMonthStatus(yearMonth, month.getStatsStatus(), month.getStatsAsOf());
+    }
+
+    private record RollupKey(String period, String key, String currency) {}
 }
@@ -0,0 +1,15 @@
+package com.marcinpypec.banktransactions.transactions;
+
+public record BatchWriteResult(
+        long inserted,
+        long alreadyWritten
+) {
+
+    public static BatchWriteResult empty() {
+        return new BatchWriteResult(0, 0);
+    }
+
+    public BatchWriteResult plus(BatchWriteResult other) {
+        return new BatchWriteResult(inserted + other.inserted, alreadyWritten + other.alreadyWritten);
+    }
+}
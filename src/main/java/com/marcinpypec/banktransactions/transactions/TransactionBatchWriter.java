@@ -1,20 +1,77 @@
 package com.marcinpypec.banktransactions.transactions;
 
-import lombok.RequiredArgsConstructor;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @Component
-@RequiredArgsConstructor
 public class TransactionBatchWriter {
 
-    private final TransactionRepository transactionRepository;
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoCollection<TransactionDocument> collection;
+
+    public TransactionBatchWriter(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(TransactionDocument.class))
+                .withDocumentClass(TransactionDocument.class)
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(new TransactionDocumentCodec()),
+                        mongoTemplate.getDb().getCodecRegistry()));
+    }
+
+    /**
+     * Writes the batch through the Spring Data mapping layer as one unordered bulk of
+     * {@code replaceOne} upserts keyed by {@code _id}; documents that already exist are
+     * counted as already written.
+     */
+    public BatchWriteResult saveBatch(List<TransactionDocument> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return BatchWriteResult.empty();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransactionDocument.class);
+        for (TransactionDocument doc : batch) {
+            bulk.replaceOne(query(where("_id").is(doc.getId())), doc, FindAndReplaceOptions.options().upsert());
+        }
+        BulkWriteResult result = bulk.execute();
+        return new BatchWriteResult(result.getUpserts().size(), result.getMatchedCount());
+    }
 
-    public void saveBatch(List<TransactionDocument> batch) {
+    /**
+     * Inserts the batch with a single unordered {@code insertMany}, encoding documents with
+     * {@link TransactionDocumentCodec} instead of the Spring Data converter. Ids are
+     * deterministic, so a duplicate-key failure means the row was stored by an earlier attempt
+     * and is counted as already written; any other write error fails the batch.
+     */
+    public BatchWriteResult insertBatch(List<TransactionDocument> batch) {
         if (batch == null || batch.isEmpty()) {
-            return;
+            return BatchWriteResult.empty();
+        }
+        try {
+            collection.insertMany(batch, UNORDERED);
+            return new BatchWriteResult(batch.size(), 0);
+        } catch (MongoBulkWriteException e) {
+            List<BulkWriteError> errors = e.getWriteErrors();
+            boolean onlyDuplicates = e.getWriteConcernError() == null && errors.stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            return new BatchWriteResult(batch.size() - errors.size(), errors.size());
         }
-        transactionRepository.saveAll(batch);
     }
 }
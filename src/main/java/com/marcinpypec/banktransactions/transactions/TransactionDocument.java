@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -21,6 +22,7 @@ public class TransactionDocument {
 
     @Id
     private String id;
+    @Indexed(name = "idx_job")
     private String importJobId;
     private String iban;
     private LocalDate transactionDate;
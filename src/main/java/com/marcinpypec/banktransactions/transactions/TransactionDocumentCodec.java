@@ -0,0 +1,121 @@
+package com.marcinpypec.banktransactions.transactions;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Writes {@link TransactionDocument} straight to BSON, bypassing Spring Data's mapping layer.
+ * The layout matches what {@code MappingMongoConverter} produces for the same entity
+ * (ObjectId-shaped ids as ObjectId, {@code LocalDate} as a date at local midnight,
+ * {@code BigDecimal} as Decimal128), so both write paths can be read back the same way.
+ */
+class TransactionDocumentCodec implements CollectibleCodec<TransactionDocument> {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Override
+    public void encode(BsonWriter writer, TransactionDocument doc, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (doc.getId() != null) {
+            writer.writeName("_id");
+            writeId(writer, doc.getId());
+        }
+        writeString(writer, "importJobId", doc.getImportJobId());
+        writeString(writer, "iban", doc.getIban());
+        if (doc.getTransactionDate() != null) {
+            writer.writeDateTime("transactionDate",
+                    doc.getTransactionDate().atStartOfDay(ZONE).toInstant().toEpochMilli());
+        }
+        writeString(writer, "currency", doc.getCurrency());
+        writeString(writer, "category", doc.getCategory());
+        if (doc.getAmount() != null) {
+            writer.writeDecimal128("amount", new Decimal128(doc.getAmount()));
+        }
+        writeString(writer, "yearMonth", doc.getYearMonth());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public TransactionDocument decode(BsonReader reader, DecoderContext decoderContext) {
+        TransactionDocument doc = new TransactionDocument();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+            switch (name) {
+                case "_id" -> doc.setId(reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                        ? reader.readObjectId().toHexString()
+                        : reader.readString());
+                case "importJobId" -> doc.setImportJobId(reader.readString());
+                case "iban" -> doc.setIban(reader.readString());
+                case "transactionDate" -> doc.setTransactionDate(
+                        LocalDate.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZONE));
+                case "currency" -> doc.setCurrency(reader.readString());
+                case "category" -> doc.setCategory(reader.readString());
+                case "amount" -> doc.setAmount(reader.readDecimal128().bigDecimalValue());
+                case "yearMonth" -> doc.setYearMonth(reader.readString());
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return doc;
+    }
+
+    @Override
+    public Class<TransactionDocument> getEncoderClass() {
+        return TransactionDocument.class;
+    }
+
+    @Override
+    public TransactionDocument generateIdIfAbsentFromDocument(TransactionDocument doc) {
+        if (doc.getId() == null) {
+            doc.setId(new ObjectId().toHexString());
+        }
+        return doc;
+    }
+
+    @Override
+    public boolean documentHasId(TransactionDocument doc) {
+        return doc.getId() != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(TransactionDocument doc) {
+        if (doc.getId() == null) {
+            throw new IllegalStateException("The document does not contain an _id");
+        }
+        return ObjectId.isValid(doc.getId())
+                ? new BsonObjectId(new ObjectId(doc.getId()))
+                : new BsonString(doc.getId());
+    }
+
+    private static void writeId(BsonWriter writer, String id) {
+        if (ObjectId.isValid(id)) {
+            writer.writeObjectId(new ObjectId(id));
+        } else {
+            writer.writeString(id);
+        }
+    }
+
+    private static void writeString(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        }
+    }
+}
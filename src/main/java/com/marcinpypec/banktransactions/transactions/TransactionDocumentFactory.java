@@ -8,8 +8,13 @@ import java.time.YearMonth;
 @Component
 public class TransactionDocumentFactory {
 
-    public TransactionDocument create(TransactionDraft tx, String jobId, YearMonth yearMonth) {
+    /**
+     * The id is derived from the job, the row's position in the file and its fields, so writing
+     * the same row of the same job again always targets the same document.
+     */
+    public TransactionDocument create(TransactionDraft tx, String jobId, YearMonth yearMonth, long ordinal) {
         TransactionDocument doc = new TransactionDocument();
+        doc.setId(TransactionFingerprint.of(jobId, ordinal, tx));
         doc.setImportJobId(jobId);
         doc.setIban(tx.iban());
         doc.setTransactionDate(tx.transactionDate());
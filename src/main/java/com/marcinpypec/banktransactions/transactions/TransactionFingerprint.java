@@ -0,0 +1,111 @@
+package com.marcinpypec.banktransactions.transactions;
+
+import com.marcinpypec.banktransactions.csv.TransactionDraft;
+
+/**
+ * 128-bit MurmurHash3 (x64 variant) over the fields that identify an imported row, rendered as
+ * 32 hex characters. Input is fed as 64-bit words rather than bytes, so no intermediate buffer
+ * is needed; strings are packed four chars to a word and followed by their length.
+ */
+final class TransactionFingerprint {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private long h1;
+    private long h2;
+    private long pending;
+    private boolean hasPending;
+    private long words;
+
+    private TransactionFingerprint() {
+    }
+
+    static String of(String jobId, long ordinal, TransactionDraft tx) {
+        TransactionFingerprint hash = new TransactionFingerprint();
+        hash.add(jobId);
+        hash.add(ordinal);
+        hash.add(tx.iban());
+        hash.add(tx.transactionDate().toEpochDay());
+        hash.add(tx.amount().scale());
+        hash.add(tx.amount().hashCode());
+        hash.add(tx.currency());
+        hash.add(tx.category());
+        return hash.toHex();
+    }
+
+    private void add(String value) {
+        int length = value.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            add(value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48);
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            tail |= (long) value.charAt(i) << shift;
+        }
+        add(tail);
+        add(length);
+    }
+
+    private void add(long word) {
+        words++;
+        if (!hasPending) {
+            pending = word;
+            hasPending = true;
+            return;
+        }
+        hasPending = false;
+
+        h1 ^= mixK1(pending);
+        h1 = Long.rotateLeft(h1, 27) + h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(word);
+        h2 = Long.rotateLeft(h2, 31) + h1;
+        h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    private String toHex() {
+        if (hasPending) {
+            h1 ^= mixK1(pending);
+        }
+        long length = words * Long.BYTES;
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        char[] out = new char[32];
+        for (int i = 0; i < 16; i++) {
+            out[15 - i] = HEX[(int) (h1 >>> (i * 4)) & 0xF];
+            out[31 - i] = HEX[(int) (h2 >>> (i * 4)) & 0xF];
+        }
+        return new String(out);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -1,10 +1,15 @@
 package com.marcinpypec.banktransactions;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marcinpypec.banktransactions.csv.RejectReason;
 import com.marcinpypec.banktransactions.importjob.dto.ImportJobResponse;
 import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.stats.StatsCache;
 import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.StatsMonthDocument;
+import com.marcinpypec.banktransactions.stats.StatsMonthStatus;
+import com.marcinpypec.banktransactions.stats.StatsStatus;
 import com.marcinpypec.banktransactions.stats.TransactionStatsRepository;
 import com.marcinpypec.banktransactions.stats.TransactionStatsRow;
 import com.marcinpypec.banktransactions.transactions.TransactionRepository;
@@ -15,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.*;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -28,8 +34,13 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -48,6 +59,7 @@ class ImportControllerIntegrationTest {
     @DynamicPropertySource
     static void mongoProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.mongodb.uri", () -> mongo.getConnectionString() + "/test_db");
+        registry.add("app.stats.materialization.debounce", () -> "50ms");
     }
 
     @Autowired
@@ -65,11 +77,19 @@ class ImportControllerIntegrationTest {
     @Autowired
     TransactionStatsRepository statsRepository;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    StatsCache statsCache;
+
     @BeforeEach
     void cleanup() {
         importJobRepository.deleteAll();
         transactionRepository.deleteAll();
         statsRepository.deleteAll();
+        mongoTemplate.dropCollection(StatsMonthDocument.class);
+        statsCache.invalidateAll();
     }
 
     @Test
@@ -143,10 +163,13 @@ class ImportControllerIntegrationTest {
         assertThat(completed.totalRows()).isEqualTo(4);
         assertThat(completed.importedRows()).isEqualTo(2);
         assertThat(completed.invalidRows()).isEqualTo(2);
+        assertThat(completed.rejections())
+                .containsEntry(RejectReason.IBAN_INVALID, 1)
+                .containsEntry(RejectReason.DATE_OUT_OF_MONTH, 1);
     }
 
     @Test
-    void shouldRejectDuplicateImportForSameMonth() throws Exception {
+    void shouldRejectIdenticalFileForSameMonth() throws Exception {
         // given: first import
         String csv = """
                 IBAN,date,currency,category,amount
@@ -154,7 +177,7 @@ class ImportControllerIntegrationTest {
                 """;
         uploadCsv("2026-01", csv, "first.csv");
 
-        // when: try to import again for same month
+        // when: try to import the same file again for same month
         MockMultipartFile file = new MockMultipartFile(
                 "file", "second.csv", "text/csv",
                 csv.getBytes(StandardCharsets.UTF_8)
@@ -167,6 +190,71 @@ class ImportControllerIntegrationTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void shouldAcceptOnlyOneOfConcurrentIdenticalUploads() throws Exception {
+        // given
+        MockMultipartFile file = new MockMultipartFile("file", "same.csv", "text/csv", """
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-02,PLN,Salary,5000.00
+                """.getBytes(StandardCharsets.UTF_8));
+        Callable<Integer> upload = () -> mockMvc.perform(multipart("/api/v1/imports")
+                        .file(file)
+                        .param("yearMonth", "2026-01"))
+                .andReturn().getResponse().getStatus();
+
+        // when
+        List<Integer> statuses;
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<Integer>> results = executor.invokeAll(List.of(upload, upload, upload, upload));
+            statuses = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                statuses.add(result.get());
+            }
+        }
+
+        // then
+        assertThat(statuses).containsOnlyOnce(202).containsOnly(202, 409);
+    }
+
+    @Test
+    void shouldAddSecondImportToSameMonthStats() throws Exception {
+        // given: first day's file imported
+        pollUntilCompleted(uploadCsv("2026-01", """
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-02,PLN,Groceries,-100.00
+                PL61109010140000071219812874,2026-01-02,PLN,Salary,5000.00
+                """, "day1.csv").id());
+
+        // when: next day's file for the same month
+        ImportJobResponse second = pollUntilCompleted(uploadCsv("2026-01", """
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-03,PLN,Groceries,-50.00
+                DE89370400440532013000,2026-01-03,EUR,Groceries,-20.00
+                """, "day2.csv").id());
+
+        // then: stats hold both imports
+        assertThat(second.status()).isEqualTo(ImportStatus.COMPLETED);
+        assertThat(transactionRepository.count()).isEqualTo(4);
+
+        List<TransactionStatsRow> categoryStats = getStats("2026-01", StatsGroupBy.CATEGORY);
+        assertThat(categoryStats).anySatisfy(row -> {
+            assertThat(row.key()).isEqualTo("Groceries");
+            assertThat(row.currency()).isEqualTo("PLN");
+            assertThat(row.count()).isEqualTo(2);
+            assertThat(row.totalAmount()).isEqualByComparingTo(new BigDecimal("-150.00"));
+        });
+        assertThat(categoryStats).anySatisfy(row -> {
+            assertThat(row.key()).isEqualTo("Groceries");
+            assertThat(row.currency()).isEqualTo("EUR");
+            assertThat(row.count()).isEqualTo(1);
+        });
+        assertThat(getStats("2026-01", StatsGroupBy.MONTH)).anySatisfy(row -> {
+            assertThat(row.currency()).isEqualTo("PLN");
+            assertThat(row.count()).isEqualTo(3);
+            assertThat(row.totalAmount()).isEqualByComparingTo(new BigDecimal("4850.00"));
+        });
+    }
+
     @Test
     void shouldRejectInvalidYearMonthFormat() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
@@ -266,6 +354,7 @@ class ImportControllerIntegrationTest {
     }
 
     private List<TransactionStatsRow> getStats(String yearMonth, StatsGroupBy groupBy) throws Exception {
+        awaitFreshStats(yearMonth);
         String json = mockMvc.perform(get("/api/v1/stats")
                         .param("yearMonth", yearMonth)
                         .param("groupBy", groupBy.name()))
@@ -276,4 +365,15 @@ class ImportControllerIntegrationTest {
 
         return Arrays.asList(objectMapper.readValue(json, TransactionStatsRow[].class));
     }
+
+    private void awaitFreshStats(String yearMonth) {
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(100))
+                .until(() -> {
+                    String json = mockMvc.perform(get("/api/v1/stats/status").param("yearMonth", yearMonth))
+                            .andReturn().getResponse().getContentAsString();
+                    return objectMapper.readValue(json, StatsMonthStatus.class).statsStatus();
+                }, status -> status == StatsStatus.FRESH);
+    }
 }
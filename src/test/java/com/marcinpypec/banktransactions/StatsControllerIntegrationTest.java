@@ -4,6 +4,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.marcinpypec.banktransactions.importjob.dto.ImportJobResponse;
 import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
 import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.stats.StatsCache;
+import com.marcinpypec.banktransactions.stats.StatsMonthDocument;
+import com.marcinpypec.banktransactions.stats.StatsMonthStatus;
+import com.marcinpypec.banktransactions.stats.StatsRollupDocument;
+import com.marcinpypec.banktransactions.stats.StatsStatus;
 import com.marcinpypec.banktransactions.stats.TransactionStatsRepository;
 import com.marcinpypec.banktransactions.stats.TransactionStatsRow;
 import com.marcinpypec.banktransactions.transactions.TransactionRepository;
@@ -14,11 +19,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -29,9 +37,11 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Testcontainers
@@ -45,6 +55,7 @@ class StatsControllerIntegrationTest {
     @DynamicPropertySource
     static void mongoProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.mongodb.uri", () -> mongo.getConnectionString() + "/test_db");
+        registry.add("app.stats.materialization.debounce", () -> "50ms");
     }
 
     @Autowired
@@ -61,11 +72,20 @@ class StatsControllerIntegrationTest {
     @Autowired
     TransactionStatsRepository statsRepository;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    StatsCache statsCache;
+
     @BeforeEach
     void cleanup() {
         importJobRepository.deleteAll();
         transactionRepository.deleteAll();
         statsRepository.deleteAll();
+        mongoTemplate.dropCollection(StatsMonthDocument.class);
+        mongoTemplate.dropCollection(StatsRollupDocument.class);
+        statsCache.invalidateAll();
     }
 
     @Nested
@@ -155,6 +175,78 @@ class StatsControllerIntegrationTest {
             assertThat(stats).hasSize(2);
         }
 
+        @Test
+        void shouldPageThroughAllRowsWithCursor() throws Exception {
+            // given
+            importTestData();
+
+            // when
+            MockHttpServletResponse first = mockMvc.perform(get("/api/v1/stats")
+                            .param("yearMonth", "2026-01")
+                            .param("groupBy", "CATEGORY")
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            MockHttpServletResponse second = mockMvc.perform(get("/api/v1/stats")
+                            .param("yearMonth", "2026-01")
+                            .param("groupBy", "CATEGORY")
+                            .param("limit", "2")
+                            .param("cursor", first.getHeader("X-Next-Cursor")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+
+            // then
+            List<TransactionStatsRow> firstPage = Arrays.asList(
+                    objectMapper.readValue(first.getContentAsString(), TransactionStatsRow[].class));
+            List<TransactionStatsRow> secondPage = Arrays.asList(
+                    objectMapper.readValue(second.getContentAsString(), TransactionStatsRow[].class));
+            assertThat(firstPage).extracting(TransactionStatsRow::key).containsExactly("Salary", "Groceries");
+            assertThat(secondPage).extracting(TransactionStatsRow::key).containsExactly("Rent");
+            assertThat(second.getHeader("X-Next-Cursor")).isNull();
+        }
+
+        @Test
+        void shouldStreamAllRowsAsNdjson() throws Exception {
+            // given
+            importTestData();
+
+            // when
+            MvcResult started = mockMvc.perform(get("/api/v1/stats")
+                            .param("yearMonth", "2026-01")
+                            .param("groupBy", "CATEGORY")
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MockHttpServletResponse response = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+
+            // then
+            assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON_VALUE);
+            List<String> lines = response.getContentAsString().lines().toList();
+            assertThat(lines).hasSize(3);
+            assertThat(objectMapper.readValue(lines.getFirst(), TransactionStatsRow.class).key()).isEqualTo("Salary");
+        }
+
+        @Test
+        void shouldRejectNdjsonLimitAboveMaximum() throws Exception {
+            mockMvc.perform(get("/api/v1/stats")
+                            .param("yearMonth", "2026-01")
+                            .param("groupBy", "CATEGORY")
+                            .param("limit", "100001")
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void shouldRejectMalformedCursor() throws Exception {
+            mockMvc.perform(get("/api/v1/stats")
+                            .param("yearMonth", "2026-01")
+                            .param("groupBy", "CATEGORY")
+                            .param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         void shouldReturnEmptyListWhenNoData() throws Exception {
             mockMvc.perform(get("/api/v1/stats")
@@ -192,6 +284,31 @@ class StatsControllerIntegrationTest {
         }
     }
 
+    @Nested
+    class GetStatus {
+
+        @Test
+        void shouldReportFreshMonthWithoutImports() throws Exception {
+            mockMvc.perform(get("/api/v1/stats/status")
+                            .param("yearMonth", "2026-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statsStatus").value("FRESH"))
+                    .andExpect(jsonPath("$.statsAsOf").doesNotExist());
+        }
+
+        @Test
+        void shouldReportWhenStatsCaughtUpWithImport() throws Exception {
+            importTestData();
+
+            mockMvc.perform(get("/api/v1/stats/status")
+                            .param("yearMonth", "2026-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.yearMonth").value("2026-01"))
+                    .andExpect(jsonPath("$.statsStatus").value("FRESH"))
+                    .andExpect(jsonPath("$.statsAsOf").isNotEmpty());
+        }
+    }
+
     @Nested
     class GetMonthlyStats {
         @Test
@@ -228,6 +345,19 @@ class StatsControllerIntegrationTest {
                     .andExpect(status().isBadRequest());
         }
 
+        @Test
+        void shouldIncludeBoundaryMonths() throws Exception {
+            importTestData();
+
+            mockMvc.perform(get("/api/v1/stats/monthly")
+                            .param("from", "2026-01")
+                            .param("to", "2026-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].yearMonth").value("2026-01"))
+                    .andExpect(jsonPath("$[0].count").value(4));
+        }
+
         @Test
         void shouldAcceptSameFromAndTo() throws Exception {
             mockMvc.perform(get("/api/v1/stats/monthly")
@@ -237,6 +367,69 @@ class StatsControllerIntegrationTest {
         }
     }
 
+    @Nested
+    class GetRollups {
+        @Test
+        void shouldRollUpMonthIntoQuarterAndYear() throws Exception {
+            importTestData();
+
+            mockMvc.perform(get("/api/v1/stats/rollups")
+                            .param("from", "2026-01")
+                            .param("to", "2026-12")
+                            .param("period", "QUARTER"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].period").value("2026-Q1"))
+                    .andExpect(jsonPath("$[0].count").value(4))
+                    .andExpect(jsonPath("$[0].totalAmount").value(2750.00));
+
+            mockMvc.perform(get("/api/v1/stats/rollups")
+                            .param("from", "2026-01")
+                            .param("to", "2026-12")
+                            .param("period", "YEAR")
+                            .param("groupBy", "CATEGORY"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(3))
+                    .andExpect(jsonPath("$[?(@.key == 'Groceries')].count").value(2));
+        }
+
+        @Test
+        void shouldSumMonthsOfPeriodCutByRange() throws Exception {
+            importTestData();
+
+            mockMvc.perform(get("/api/v1/stats/rollups")
+                            .param("from", "2025-12")
+                            .param("to", "2026-02")
+                            .param("period", "YEAR"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].period").value("2026"))
+                    .andExpect(jsonPath("$[0].fromMonth").value("2026-01"))
+                    .andExpect(jsonPath("$[0].toMonth").value("2026-02"))
+                    .andExpect(jsonPath("$[0].count").value(4));
+        }
+
+        @Test
+        void shouldRejectMonthThatDoesNotExist() throws Exception {
+            mockMvc.perform(get("/api/v1/stats/rollups")
+                            .param("from", "2026-01")
+                            .param("to", "2026-13")
+                            .param("period", "YEAR"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("BAD_REQUEST"));
+        }
+
+        @Test
+        void shouldRejectCategoryByQuarter() throws Exception {
+            mockMvc.perform(get("/api/v1/stats/rollups")
+                            .param("from", "2026-01")
+                            .param("to", "2026-12")
+                            .param("period", "QUARTER")
+                            .param("groupBy", "CATEGORY"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     // Helper methods
 
     private void importTestData() throws Exception {
@@ -272,6 +465,7 @@ class StatsControllerIntegrationTest {
                             .andReturn().getResponse().getContentAsString();
                     return objectMapper.readValue(statusJson, ImportJobResponse.class).status();
                 }, status -> status == ImportStatus.COMPLETED);
+        awaitFreshStats("2026-01");
     }
 
     private List<TransactionStatsRow> getStats(String yearMonth, String groupBy, int limit, String sort) throws Exception {
@@ -287,4 +481,15 @@ class StatsControllerIntegrationTest {
 
         return Arrays.asList(objectMapper.readValue(json, TransactionStatsRow[].class));
     }
+
+    private void awaitFreshStats(String yearMonth) {
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(100))
+                .until(() -> {
+                    String json = mockMvc.perform(get("/api/v1/stats/status").param("yearMonth", yearMonth))
+                            .andReturn().getResponse().getContentAsString();
+                    return objectMapper.readValue(json, StatsMonthStatus.class).statsStatus();
+                }, status -> status == StatsStatus.FRESH);
+    }
 }
@@ -5,8 +5,15 @@ import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -21,6 +28,10 @@ class CsvTransactionReaderTest {
         reader = new CsvTransactionReader();
     }
 
+    private InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     void shouldParseValidCsv() throws Exception {
         // given
@@ -31,7 +42,7 @@ class CsvTransactionReaderTest {
                 """;
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -51,7 +62,7 @@ class CsvTransactionReaderTest {
                 """;
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -69,7 +80,7 @@ class CsvTransactionReaderTest {
                 """;
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -85,7 +96,7 @@ class CsvTransactionReaderTest {
         String csv = "";
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -99,7 +110,7 @@ class CsvTransactionReaderTest {
         String csv = "IBAN,date,currency,category,amount\n";
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -116,7 +127,7 @@ class CsvTransactionReaderTest {
                 """;
 
         // when
-        try (CSVParser parser = reader.openParser(csv.getBytes(StandardCharsets.UTF_8))) {
+        try (CSVParser parser = reader.openParser(stream(csv))) {
             List<CSVRecord> records = parser.getRecords();
 
             // then
@@ -126,7 +137,52 @@ class CsvTransactionReaderTest {
 
     @Test
     void shouldThrowExceptionForNullInput() {
-        assertThatThrownBy(() -> reader.openParser(null))
+        assertThatThrownBy(() -> reader.openParser((InputStream) null))
+                .isInstanceOf(ImportFileReadException.class);
+    }
+
+    @Test
+    void shouldParseStagedFile(@TempDir Path dir) throws Exception {
+        // given
+        Path file = Files.writeString(dir.resolve("staged.csv"), """
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-15,PLN,Food,-50.00
+                """, StandardCharsets.UTF_8);
+
+        // when
+        try (CSVParser parser = reader.openParser(file)) {
+            List<CSVRecord> records = parser.getRecords();
+
+            // then
+            assertThat(records).hasSize(1);
+            assertThat(records.get(0).get("category")).isEqualTo("Food");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CsvEngine.class)
+    void shouldReportBytesReadAfterLastRow(CsvEngine engine, @TempDir Path dir) throws Exception {
+        // given
+        Path file = Files.writeString(dir.resolve("staged.csv"), """
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-15,PLN,Food,-50.00
+                DE89370400440532013000,2026-01-16,EUR,Salary,3000.00
+                """, StandardCharsets.UTF_8);
+
+        // when
+        try (CsvRowReader rows = reader.open(file, engine)) {
+            while (rows.next()) {
+                rows.row();
+            }
+
+            // then
+            assertThat(rows.bytesRead()).isEqualTo(Files.size(file));
+        }
+    }
+
+    @Test
+    void shouldThrowExceptionForMissingFile(@TempDir Path dir) {
+        assertThatThrownBy(() -> reader.openParser(dir.resolve("missing.csv")))
                 .isInstanceOf(ImportFileReadException.class);
     }
 }
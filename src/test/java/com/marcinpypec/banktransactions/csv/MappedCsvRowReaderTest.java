@@ -0,0 +1,266 @@
+package com.marcinpypec.banktransactions.csv;
+
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedCsvRowReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String csv) throws IOException {
+        return Files.writeString(dir.resolve("input.csv"), csv, StandardCharsets.UTF_8);
+    }
+
+    private List<List<String>> readAll(MappedCsvRowReader reader) {
+        List<List<String>> rows = new ArrayList<>();
+        while (reader.next()) {
+            CsvRow row = reader.row();
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < row.size(); i++) {
+                values.add(row.get(i));
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    @Test
+    void shouldParseValidCsv() throws Exception {
+        // given
+        Path file = write("""
+                IBAN,date,currency,category,amount
+                PL61109010140000071219812874,2026-01-15,PLN,Food,-50.00
+                DE89370400440532013000,2026-01-16,EUR,Salary,3000.00
+                """);
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            // then
+            assertThat(reader.header()).containsExactly("IBAN", "date", "currency", "category", "amount");
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.row().get("IBAN")).isEqualTo("PL61109010140000071219812874");
+            assertThat(reader.row().get("amount")).isEqualTo("-50.00");
+            assertThat(reader.next()).isTrue();
+            assertThat(reader.row().get("currency")).isEqualTo("EUR");
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldTrimWhitespaceAndCarriageReturns() throws Exception {
+        // given
+        Path file = write("IBAN,date,currency,category,amount\r\n"
+                + "  PL12345678901234567890123456  ,  2026-01-01  ,  PLN  ,  Food  ,  100.00  \r\n");
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            // then
+            assertThat(readAll(reader)).containsExactly(
+                    List.of("PL12345678901234567890123456", "2026-01-01", "PLN", "Food", "100.00"));
+        }
+    }
+
+    @Test
+    void shouldExposeRawFieldCharacters() throws Exception {
+        // given
+        Path file = write("IBAN,date,currency,category,amount\n"
+                + "PL61109010140000071219812874, 2026-01-15 ,PLN,\"Food\",-50.00\n");
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            reader.next();
+            CsvRow row = reader.row();
+
+            // then
+            assertThat(row.length(1)).isEqualTo(10);
+            assertThat(row.charAt(1, 0)).isEqualTo('2');
+            assertThat(row.charAt(1, 9)).isEqualTo('5');
+            assertThat(row.length(3)).isEqualTo(4);
+            assertThat(row.charAt(3, 0)).isEqualTo('F');
+        }
+    }
+
+    @Test
+    void shouldHandleQuotedFields() throws Exception {
+        // given
+        Path file = write("""
+                IBAN,date,currency,category,amount
+                PL12345678901234567890123456,2026-01-01,PLN,"Food, drinks",100.00
+                PL12345678901234567890123456,2026-01-01,PLN,"The ""Best"" Shop",100.00
+                """);
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            List<List<String>> rows = readAll(reader);
+
+            // then
+            assertThat(rows).hasSize(2);
+            assertThat(rows.get(0).get(3)).isEqualTo("Food, drinks");
+            assertThat(rows.get(1).get(3)).isEqualTo("The \"Best\" Shop");
+        }
+    }
+
+    @Test
+    void shouldSkipEmptyLinesAndReadLastRowWithoutNewline() throws Exception {
+        // given
+        Path file = write("IBAN,date,currency,category,amount\n\n"
+                + "PL12345678901234567890123456,2026-01-01,PLN,Food,1.00\n\r\n"
+                + "PL12345678901234567890123456,2026-01-02,PLN,Rent,2.00");
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            // then
+            assertThat(readAll(reader)).extracting(row -> row.get(4)).containsExactly("1.00", "2.00");
+        }
+    }
+
+    @Test
+    void shouldReadRecordsAcrossMappingWindows() throws Exception {
+        // given
+        StringBuilder csv = new StringBuilder("IBAN,date,currency,category,amount\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("PL12345678901234567890123456,2026-01-01,PLN,Category").append(i).append(',').append(i).append('\n');
+        }
+        Path file = write(csv.toString());
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file, 128)) {
+            List<List<String>> rows = readAll(reader);
+
+            // then
+            assertThat(rows).hasSize(100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(rows.get(i)).containsExactly(
+                        "PL12345678901234567890123456", "2026-01-01", "PLN", "Category" + i, String.valueOf(i));
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectRecordLargerThanWindow() throws Exception {
+        // given
+        Path file = write("IBAN,date,currency,category,amount\n"
+                + "PL12345678901234567890123456,2026-01-01,PLN,Food,1.00\n");
+
+        // when/then
+        assertThatThrownBy(() -> new MappedCsvRowReader(file, 16))
+                .isInstanceOf(ImportFileReadException.class);
+    }
+
+    @Test
+    void shouldExposeShortRowsAndFailOnMissingValue() throws Exception {
+        // given
+        Path file = write("""
+                IBAN,date,currency,category,amount
+                PL12345678901234567890123456,2026-01-01,PLN
+                """);
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            reader.next();
+            CsvRow row = reader.row();
+
+            // then
+            assertThat(row.size()).isEqualTo(3);
+            assertThat(row.isMapped("amount")).isTrue();
+            assertThatThrownBy(() -> row.get("amount")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void shouldHandleUtf8Characters() throws Exception {
+        // given
+        Path file = write("""
+                IBAN,date,currency,category,amount
+                PL12345678901234567890123456,2026-01-01,PLN,Żywność,100.00
+                """);
+
+        // when
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            reader.next();
+
+            // then
+            assertThat(reader.row().get("category")).isEqualTo("Żywność");
+        }
+    }
+
+    @Test
+    void shouldHandleEmptyAndHeaderOnlyFiles() throws Exception {
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(write(""))) {
+            assertThat(reader.header()).isEmpty();
+            assertThat(reader.next()).isFalse();
+        }
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(write("IBAN,date,currency,category,amount\n"))) {
+            assertThat(reader.header()).hasSize(5);
+            assertThat(reader.next()).isFalse();
+        }
+    }
+
+    @Test
+    void shouldRejectDuplicateHeader() throws Exception {
+        Path file = write("IBAN,date,IBAN\n");
+
+        assertThatThrownBy(() -> new MappedCsvRowReader(file))
+                .isInstanceOf(ImportFileReadException.class)
+                .hasMessageContaining("IBAN");
+    }
+
+    @Test
+    void shouldSplitIntoNewlineAlignedChunksCoveringAllRows() throws Exception {
+        // given
+        StringBuilder csv = new StringBuilder("IBAN,date,currency,category,amount\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("PL12345678901234567890123456,2026-01-01,PLN,Category").append(i).append(',').append(i).append('\n');
+        }
+        Path file = write(csv.toString());
+
+        List<List<String>> expected;
+        try (MappedCsvRowReader reader = new MappedCsvRowReader(file)) {
+            expected = readAll(reader);
+        }
+
+        // when
+        CsvSplit split = MappedCsvRowReader.split(file, 7, 100);
+
+        // then
+        assertThat(split.header()).containsExactly("IBAN", "date", "currency", "category", "amount");
+        assertThat(split.chunks()).hasSize(7);
+
+        List<List<String>> actual = new ArrayList<>();
+        for (CsvChunk chunk : split.chunks()) {
+            try (MappedCsvRowReader reader = new MappedCsvRowReader(file, split.header(), chunk.start(), chunk.end())) {
+                actual.addAll(readAll(reader));
+            }
+        }
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldNotSplitBelowMinimumChunkSize() throws Exception {
+        // given
+        Path file = write("""
+                IBAN,date,currency,category,amount
+                PL12345678901234567890123456,2026-01-01,PLN,Food,1.00
+                PL12345678901234567890123456,2026-01-02,PLN,Rent,2.00
+                """);
+
+        // when
+        CsvSplit split = MappedCsvRowReader.split(file, 16, 1024);
+
+        // then
+        assertThat(split.chunks()).hasSize(1);
+        assertThat(split.chunks().getFirst().end()).isEqualTo(Files.size(file));
+    }
+}
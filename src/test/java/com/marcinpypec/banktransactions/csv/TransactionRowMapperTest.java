@@ -2,47 +2,47 @@ package com.marcinpypec.banktransactions.csv;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringReader;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class TransactionRowMapperTest {
 
     private TransactionRowMapper mapper;
+    private List<String> header;
 
     @BeforeEach
     void setUp() {
         mapper = new TransactionRowMapper();
     }
 
-    private CSVRecord parseRecord(String header, String row) throws Exception {
+    private CsvRow parseRecord(String header, String row) throws Exception {
         String csv = header + "\n" + row;
         CSVParser parser = CSVParser.parse(new StringReader(csv),
                 CSVFormat.DEFAULT.builder()
                         .setHeader()
                         .setSkipHeaderRecord(true)
                         .build());
-        return parser.getRecords().get(0);
+        this.header = parser.getHeaderNames();
+        return new CommonsCsvRow(parser.getRecords().get(0));
     }
 
     @Test
     void shouldMapValidRecord() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,Groceries,-186.47"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.iban()).isEqualTo("PL61109010140000071219812874");
@@ -55,13 +55,13 @@ class TransactionRowMapperTest {
     @Test
     void shouldMapPositiveAmount() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-02,PLN,Salary,12500.00"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.amount()).isEqualByComparingTo(new BigDecimal("12500.00"));
@@ -70,13 +70,13 @@ class TransactionRowMapperTest {
     @Test
     void shouldHandleLowercaseHeaders() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "iban,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,Food,-50.00"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.iban()).isEqualTo("PL61109010140000071219812874");
@@ -86,13 +86,13 @@ class TransactionRowMapperTest {
     @Test
     void shouldHandleUppercaseHeaders() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,DATE,CURRENCY,CATEGORY,AMOUNT",
                 "PL61109010140000071219812874,2026-01-15,EUR,Rent,-1500.00"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.currency()).isEqualTo("EUR");
@@ -100,55 +100,63 @@ class TransactionRowMapperTest {
     }
 
     @Test
-    void shouldThrowForMissingColumn() throws Exception {
+    void shouldRejectMissingColumn() throws Exception {
         // given - missing 'category' column
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,-50.00"
         );
+        TransactionRowPlan plan = mapper.compile(header);
 
-        // when/then
-        assertThatThrownBy(() -> mapper.map(record))
-                .isInstanceOf(IllegalArgumentException.class)
-                .hasMessageContaining("Missing column");
+        // when
+        TransactionDraft draft = plan.map(record);
+
+        // then
+        assertThat(draft).isNull();
+        assertThat(plan.rejectReason(record)).isEqualTo(RejectReason.MISSING_COLUMN);
     }
 
     @Test
-    void shouldThrowForInvalidDateFormat() throws Exception {
+    void shouldLeaveDateEmptyForInvalidDateFormat() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,15-01-2026,PLN,Food,-50.00"
         );
 
-        // when/then
-        assertThatThrownBy(() -> mapper.map(record))
-                .isInstanceOf(DateTimeParseException.class);
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.transactionDate()).isNull();
+        assertThat(draft.amount()).isEqualByComparingTo(new BigDecimal("-50.00"));
     }
 
     @Test
-    void shouldThrowForInvalidAmountFormat() throws Exception {
+    void shouldLeaveAmountEmptyForInvalidAmountFormat() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,Food,not-a-number"
         );
 
-        // when/then
-        assertThatThrownBy(() -> mapper.map(record))
-                .isInstanceOf(NumberFormatException.class);
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.amount()).isNull();
     }
 
     @Test
     void shouldHandleAmountWithManyDecimalPlaces() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,Food,-123.456789"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.amount()).isEqualByComparingTo(new BigDecimal("-123.456789"));
@@ -157,15 +165,159 @@ class TransactionRowMapperTest {
     @Test
     void shouldHandleZeroAmount() throws Exception {
         // given
-        CSVRecord record = parseRecord(
+        CsvRow record = parseRecord(
                 "IBAN,date,currency,category,amount",
                 "PL61109010140000071219812874,2026-01-15,PLN,Refund,0.00"
         );
 
         // when
-        TransactionDraft draft = mapper.map(record);
+        TransactionDraft draft = mapper.compile(header).map(record);
 
         // then
         assertThat(draft.amount()).isEqualByComparingTo(BigDecimal.ZERO);
     }
+
+    @Test
+    void shouldParseLeapDay() throws Exception {
+        // given
+        CsvRow record = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2028-02-29,PLN,Food,-50.00"
+        );
+
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.transactionDate()).isEqualTo(LocalDate.of(2028, 2, 29));
+    }
+
+    @Test
+    void shouldLeaveDateEmptyForNonExistingDay() throws Exception {
+        // given
+        CsvRow record = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-02-30,PLN,Food,-50.00"
+        );
+
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.transactionDate()).isNull();
+    }
+
+    @Test
+    void shouldKeepScaleOfParsedAmount() throws Exception {
+        // given
+        CsvRow record = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,+0.50"
+        );
+
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.amount()).isEqualTo(new BigDecimal("0.50"));
+    }
+
+    @Test
+    void shouldFallBackForAmountsOutsideFastPath() throws Exception {
+        // given
+        CsvRow exponent = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,1.5E3"
+        );
+        CsvRow longAmount = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,-12345678901234567890.123"
+        );
+
+        // when
+        BigDecimal exponentAmount = mapper.compile(header).map(exponent).amount();
+        BigDecimal longValue = mapper.compile(header).map(longAmount).amount();
+
+        // then
+        assertThat(exponentAmount).isEqualByComparingTo(new BigDecimal("1500"));
+        assertThat(longValue).isEqualTo(new BigDecimal("-12345678901234567890.123"));
+    }
+
+    @Test
+    void shouldLeaveAmountEmptyForMalformedNumbers() throws Exception {
+        // given
+        CsvRow twoPoints = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,1.2.3"
+        );
+        CsvRow badExponent = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,1.5E"
+        );
+        CsvRow onlySign = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,-"
+        );
+
+        // when/then
+        assertThat(mapper.compile(header).map(twoPoints).amount()).isNull();
+        assertThat(mapper.compile(header).map(badExponent).amount()).isNull();
+        assertThat(mapper.compile(header).map(onlySign).amount()).isNull();
+    }
+
+    @Test
+    void shouldResolveColumnsInAnyOrder() throws Exception {
+        // given
+        CsvRow record = parseRecord(
+                "amount,category,currency,date,IBAN",
+                "-50.00,Food,PLN,2026-01-15,PL61109010140000071219812874"
+        );
+
+        // when
+        TransactionDraft draft = mapper.compile(header).map(record);
+
+        // then
+        assertThat(draft.iban()).isEqualTo("PL61109010140000071219812874");
+        assertThat(draft.amount()).isEqualByComparingTo(new BigDecimal("-50.00"));
+    }
+
+    @Test
+    void shouldReuseDecodedValuesAcrossRows() throws Exception {
+        // given
+        CsvRow first = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,-50.00"
+        );
+        CsvRow second = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN,Food,-20.00"
+        );
+        TransactionRowPlan plan = mapper.compile(header);
+
+        // when
+        TransactionDraft a = plan.map(first);
+        TransactionDraft b = plan.map(second);
+
+        // then
+        assertThat(b.currency()).isSameAs(a.currency());
+        assertThat(b.category()).isSameAs(a.category());
+        assertThat(b.transactionDate()).isSameAs(a.transactionDate());
+    }
+
+    @Test
+    void shouldRejectShortRow() throws Exception {
+        // given
+        CsvRow record = parseRecord(
+                "IBAN,date,currency,category,amount",
+                "PL61109010140000071219812874,2026-01-15,PLN"
+        );
+        TransactionRowPlan plan = mapper.compile(header);
+
+        // when
+        TransactionDraft draft = plan.map(record);
+
+        // then
+        assertThat(draft).isNull();
+        assertThat(plan.rejectReason(record)).isEqualTo(RejectReason.SHORT_ROW);
+    }
 }
@@ -11,8 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
 
-import static org.assertj.core.api.Assertions.assertThatCode;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.assertThat;
 
 class TransactionRowValidatorTest {
 
@@ -37,8 +36,7 @@ class TransactionRowValidatorTest {
 
     @Test
     void shouldPassForValidTransaction() {
-        assertThatCode(() -> validator.validate(validDraft(), expectedMonth))
-                .doesNotThrowAnyException();
+        assertThat(validator.validate(validDraft(), expectedMonth)).isEmpty();
     }
 
     @Nested
@@ -53,8 +51,25 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+                "GB29NWBK60161331926819",
+                "FR1420041010050500013M02606",
+                "NO9386011117947",
+                "CH9300762011623852957"
+        })
+        void shouldPassForValidIbansOfOtherCountries(String iban) {
+            var draft = new TransactionDraft(
+                    iban,
+                    LocalDate.of(2026, 1, 15),
+                    "EUR",
+                    "Food",
+                    BigDecimal.TEN
+            );
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
 
         @Test
@@ -66,8 +81,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
 
         @ParameterizedTest
@@ -81,9 +95,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("IBAN");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.IBAN_INVALID);
         }
 
         @ParameterizedTest
@@ -92,7 +104,11 @@ class TransactionRowValidatorTest {
                 "PL123",                          // too short
                 "12345678901234567890",           // no country code
                 "PL6110901014000007121981287!",   // special character
-                "PL 61109010140000071219812874"   // space
+                "PL 61109010140000071219812874",  // space
+                "PL61109010140000071219812875",   // checksum off by one digit
+                "PL16109010140000071219812874",   // swapped check digits
+                "DE8937040044053201300",          // too short for DE
+                "XX89370400440532013000"          // not an IBAN country
         })
         void shouldRejectInvalidIban(String iban) {
             var draft = new TransactionDraft(
@@ -102,9 +118,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("IBAN");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.IBAN_INVALID);
         }
     }
 
@@ -120,9 +134,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("date");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.DATE_INVALID);
         }
 
         @Test
@@ -134,9 +146,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("date");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.DATE_OUT_OF_MONTH);
         }
 
         @Test
@@ -148,9 +158,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("date");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.DATE_OUT_OF_MONTH);
         }
 
         @Test
@@ -163,8 +171,7 @@ class TransactionRowValidatorTest {
                         "Food",
                         BigDecimal.TEN
                 );
-                assertThatCode(() -> validator.validate(draft, expectedMonth))
-                        .doesNotThrowAnyException();
+                assertThat(validator.validate(draft, expectedMonth)).isEmpty();
             }
         }
     }
@@ -182,13 +189,12 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
 
         @ParameterizedTest
         @NullAndEmptySource
-        @ValueSource(strings = {"pln", "Pln", "PL", "PLNN", "123", "PL1"})
+        @ValueSource(strings = {"pln", "Pln", "PL", "PLNN", "123", "PL1", "ABC", "ZZZ"})
         void shouldRejectInvalidCurrency(String currency) {
             var draft = new TransactionDraft(
                     "PL61109010140000071219812874",
@@ -197,9 +203,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("currency");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.CURRENCY_INVALID);
         }
     }
 
@@ -217,9 +221,7 @@ class TransactionRowValidatorTest {
                     category,
                     BigDecimal.TEN
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("category");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.CATEGORY_BLANK);
         }
 
         @ParameterizedTest
@@ -232,8 +234,7 @@ class TransactionRowValidatorTest {
                     category,
                     BigDecimal.TEN
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
     }
 
@@ -249,9 +250,7 @@ class TransactionRowValidatorTest {
                     "Food",
                     null
             );
-            assertThatThrownBy(() -> validator.validate(draft, expectedMonth))
-                    .isInstanceOf(RowValidationException.class)
-                    .hasMessageContaining("amount");
+            assertThat(validator.validate(draft, expectedMonth)).contains(RejectReason.AMOUNT_INVALID);
         }
 
         @Test
@@ -263,8 +262,7 @@ class TransactionRowValidatorTest {
                     "Salary",
                     new BigDecimal("5000.00")
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
 
         @Test
@@ -276,8 +274,7 @@ class TransactionRowValidatorTest {
                     "Groceries",
                     new BigDecimal("-150.00")
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
 
         @Test
@@ -289,8 +286,7 @@ class TransactionRowValidatorTest {
                     "Refund",
                     BigDecimal.ZERO
             );
-            assertThatCode(() -> validator.validate(draft, expectedMonth))
-                    .doesNotThrowAnyException();
+            assertThat(validator.validate(draft, expectedMonth)).isEmpty();
         }
     }
 }
@@ -0,0 +1,131 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveBatchSizerTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldFlushWhenBatchReachesCurrentSize() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+
+        // when & then
+        assertThat(sizer.shouldFlush(999, 1_000)).isFalse();
+        assertThat(sizer.shouldFlush(1000, 1_000)).isTrue();
+    }
+
+    @Test
+    void shouldFlushAndShrinkWhenBatchReachesByteLimit() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+
+        // when
+        boolean flush = sizer.shouldFlush(400, DataSize.ofMegabytes(16).toBytes());
+
+        // then
+        assertThat(flush).isTrue();
+        assertThat(sizer.batchSize()).isEqualTo(400);
+    }
+
+    @Test
+    void shouldGrowWhileThroughputImproves() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+
+        // when - same latency per batch, so bigger batches mean more rows per second
+        writeWindow(sizer, MILLI);
+        int afterFirstWindow = sizer.batchSize();
+        writeWindow(sizer, MILLI);
+
+        // then
+        assertThat(afterFirstWindow).isEqualTo(1250);
+        assertThat(sizer.batchSize()).isEqualTo(1563);
+    }
+
+    @Test
+    void shouldTurnAroundWhenThroughputDrops() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+        writeWindow(sizer, MILLI);
+        writeWindow(sizer, MILLI);
+
+        // when
+        writeWindow(sizer, 2 * MILLI);
+
+        // then
+        assertThat(sizer.batchSize()).isEqualTo(1250);
+    }
+
+    @Test
+    void shouldHoldSizeWhenThroughputIsStable() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+        writeWindow(sizer, MILLI);
+
+        // when - 25% more rows per batch at 25% more latency
+        writeWindow(sizer, MILLI + MILLI / 4);
+
+        // then
+        assertThat(sizer.batchSize()).isEqualTo(1250);
+    }
+
+    @Test
+    void shouldHalveOnLatencySpike() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+        sizer.recordWrite(1000, MILLI);
+
+        // when
+        sizer.recordWrite(1000, 10 * MILLI);
+
+        // then
+        assertThat(sizer.batchSize()).isEqualTo(500);
+    }
+
+    @Test
+    void shouldHalveWhenWriteExceedsMaxLatency() {
+        // given
+        AdaptiveBatchSizer sizer = sizer(1000, 100, 10_000);
+
+        // when
+        sizer.recordWrite(1000, TimeUnit.SECONDS.toNanos(3));
+
+        // then
+        assertThat(sizer.batchSize()).isEqualTo(500);
+    }
+
+    @Test
+    void shouldStayWithinConfiguredBounds() {
+        // given
+        AdaptiveBatchSizer small = sizer(150, 100, 10_000);
+        AdaptiveBatchSizer large = sizer(1000, 100, 1100);
+
+        // when
+        small.recordWrite(150, TimeUnit.SECONDS.toNanos(3));
+        writeWindow(large, MILLI);
+
+        // then
+        assertThat(small.batchSize()).isEqualTo(100);
+        assertThat(large.batchSize()).isEqualTo(1100);
+    }
+
+    private static void writeWindow(AdaptiveBatchSizer sizer, long nanosPerBatch) {
+        for (int i = 0; i < AdaptiveBatchSizer.WINDOW; i++) {
+            sizer.recordWrite(sizer.batchSize(), nanosPerBatch);
+        }
+    }
+
+    private static AdaptiveBatchSizer sizer(int initialSize, int minSize, int maxSize) {
+        return new AdaptiveBatchSizer(new ImportProperties.Batching(
+                initialSize, minSize, maxSize, DataSize.ofMegabytes(16), Duration.ofSeconds(2)));
+    }
+}
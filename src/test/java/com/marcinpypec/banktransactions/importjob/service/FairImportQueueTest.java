@@ -0,0 +1,85 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairImportQueueTest {
+
+    @Test
+    void shouldAlternateBetweenKeys() throws InterruptedException {
+        // given
+        FairImportQueue queue = new FairImportQueue(10);
+        List<String> executed = new ArrayList<>();
+        queue.offer("client-a", () -> executed.add("a1"));
+        queue.offer("client-a", () -> executed.add("a2"));
+        queue.offer("client-a", () -> executed.add("a3"));
+        queue.offer("client-b", () -> executed.add("b1"));
+        queue.offer("client-c", () -> executed.add("c1"));
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            queue.take().run();
+        }
+
+        // then
+        assertThat(executed).containsExactly("a1", "b1", "c1", "a2", "a3");
+    }
+
+    @Test
+    void shouldRejectWhenFull() {
+        // given
+        FairImportQueue queue = new FairImportQueue(2);
+
+        // when
+        boolean first = queue.offer("client-a", () -> {});
+        boolean second = queue.offer("client-b", () -> {});
+        boolean third = queue.offer("client-c", () -> {});
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(queue.isFull()).isTrue();
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAcceptAgainAfterTake() throws InterruptedException {
+        // given
+        FairImportQueue queue = new FairImportQueue(1);
+        queue.offer("client-a", () -> {});
+
+        // when
+        queue.take();
+
+        // then
+        assertThat(queue.isFull()).isFalse();
+        assertThat(queue.offer("client-a", () -> {})).isTrue();
+    }
+
+    @Test
+    void shouldBlockTakeUntilTaskArrives() throws Exception {
+        // given
+        FairImportQueue queue = new FairImportQueue(1);
+        Runnable task = () -> {};
+        CompletableFuture<Runnable> taken = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // when
+        queue.offer("client-a", task);
+
+        // then
+        assertThat(taken.get(5, TimeUnit.SECONDS)).isSameAs(task);
+    }
+}
@@ -0,0 +1,79 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportReport;
+import com.marcinpypec.banktransactions.importjob.model.ImportSegment;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ImportCheckpointsTest {
+
+    private final ImportJobRepository repository = mock(ImportJobRepository.class);
+
+    @Test
+    void shouldHoldCheckpointUntilEarlierBatchesAreWritten() {
+        // given
+        ImportSegment segment = ImportSegment.planned(0, 0, 300);
+        ImportCheckpoints checkpoints = new ImportCheckpoints("job-1", List.of(segment), repository);
+        ImportSegment first = segment.advance(100, rows(10), false);
+        ImportSegment second = first.advance(200, rows(20), false);
+
+        // when
+        checkpoints.written(second);
+
+        // then
+        verify(repository, never()).updateSegment(any(), any());
+        assertThat(checkpoints.segments().getFirst().offset()).isZero();
+
+        // when
+        checkpoints.written(first);
+
+        // then
+        verify(repository).updateSegment("job-1", second);
+        verify(repository, never()).updateSegment("job-1", first);
+        assertThat(checkpoints.segments().getFirst()).isEqualTo(second);
+    }
+
+    @Test
+    void shouldTrackSegmentsIndependently() {
+        // given
+        ImportSegment left = ImportSegment.planned(0, 0, 100);
+        ImportSegment right = ImportSegment.planned(1, 100, 200);
+        ImportCheckpoints checkpoints = new ImportCheckpoints("job-1", List.of(left, right), repository);
+
+        // when
+        checkpoints.written(right.advance(200, rows(7), true));
+
+        // then
+        verify(repository).updateSegment(eq("job-1"), any());
+        assertThat(checkpoints.segments()).extracting(ImportSegment::complete).containsExactly(false, true);
+        assertThat(checkpoints.report().totalRows()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldContinueFromStoredCheckpoint() {
+        // given
+        ImportSegment stored = ImportSegment.planned(0, 0, 300).advance(100, rows(10), false);
+        ImportCheckpoints checkpoints = new ImportCheckpoints("job-1", List.of(stored), repository);
+
+        // when
+        checkpoints.written(stored.advance(300, rows(30), true));
+
+        // then
+        assertThat(checkpoints.segments().getFirst().batchSeq()).isEqualTo(2);
+        assertThat(checkpoints.report().importedRows()).isEqualTo(30);
+    }
+
+    private static ImportReport rows(int count) {
+        return new ImportReport(count, count, 0, Map.of());
+    }
+}
@@ -0,0 +1,77 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.model.ImportProgress;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ImportProgressTrackerTest {
+
+    private final ImportJobRepository repository = mock(ImportJobRepository.class);
+
+    @Test
+    void shouldNotWriteBeforeIntervalElapses() {
+        // given
+        ImportProgressTracker tracker = new ImportProgressTracker("job-1", 1_000, Duration.ofHours(1), repository);
+
+        // when
+        tracker.advance(100, 100);
+        tracker.advance(100, 100);
+
+        // then
+        verify(repository, never()).updateProgress(any(), any());
+    }
+
+    @Test
+    void shouldWriteOncePerInterval() {
+        // given
+        ImportProgressTracker tracker = new ImportProgressTracker("job-1", 1_000, Duration.ZERO, repository);
+
+        // when
+        tracker.advance(100, 100);
+
+        // then
+        verify(repository, times(1)).updateProgress(eq("job-1"), any());
+    }
+
+    @Test
+    void shouldSumCountsAndEstimateRemainingTime() throws InterruptedException {
+        // given
+        ImportProgressTracker tracker = new ImportProgressTracker("job-1", 1_000, Duration.ofHours(1), repository);
+        tracker.advance(300, 250);
+        tracker.advance(200, 250);
+        Thread.sleep(20);
+
+        // when
+        ImportProgress progress = tracker.snapshot();
+
+        // then
+        assertThat(progress.processedRows()).isEqualTo(500);
+        assertThat(progress.processedBytes()).isEqualTo(500);
+        assertThat(progress.totalBytes()).isEqualTo(1_000);
+        assertThat(progress.rowsPerSecond()).isPositive();
+        assertThat(progress.etaSeconds()).isNotNull().isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void shouldNotReportMoreBytesThanTheFileHas() {
+        // given
+        ImportProgressTracker tracker = new ImportProgressTracker("job-1", 1_000, Duration.ofHours(1), repository);
+
+        // when
+        tracker.advance(10, 1_200);
+
+        // then
+        assertThat(tracker.snapshot().processedBytes()).isEqualTo(1_000);
+        assertThat(tracker.snapshot().etaSeconds()).isZero();
+    }
+}
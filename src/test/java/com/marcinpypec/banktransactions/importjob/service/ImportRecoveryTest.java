@@ -0,0 +1,97 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.model.ImportJobDocument;
+import com.marcinpypec.banktransactions.importjob.model.ImportStatus;
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.importjob.storage.ImportFileStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ImportRecoveryTest {
+
+    @TempDir
+    Path stagingDir;
+
+    private final ImportJobRepository importJobRepository = mock(ImportJobRepository.class);
+    private final ImportProcessor importProcessor = mock(ImportProcessor.class);
+    private final ImportScheduler importScheduler = mock(ImportScheduler.class);
+    private final ImportFileStorage fileStorage = mock(ImportFileStorage.class);
+    private final ImportLeases importLeases = new ImportLeases(importJobRepository, new ImportProperties(
+            null, null, null, null, null, null, null, null, null, null, null,
+            new ImportProperties.Lease("node-1", Duration.ofMinutes(2), Duration.ofSeconds(30))));
+    private final ImportRecovery recovery = new ImportRecovery(importJobRepository, importProcessor, importScheduler,
+            fileStorage, importLeases);
+
+    @Test
+    void shouldLeaveJobOwnedByLiveInstanceAlone() {
+        // given
+        ImportJobDocument job = job("job-1", "node-2");
+        when(importJobRepository.findByStatusIn(any())).thenReturn(List.of(job));
+        when(importJobRepository.claim(eq("job-1"), eq("node-1"), anyString(), any(), any())).thenReturn(false);
+
+        // when
+        recovery.recover();
+
+        // then
+        verifyNoInteractions(importProcessor, importScheduler);
+        assertThat(job.getOwnerId()).isEqualTo("node-2");
+    }
+
+    @Test
+    void shouldResumeClaimedJobWithStagedFile() throws IOException {
+        // given
+        ImportJobDocument job = job("job-1", "node-2");
+        Path stagedFile = Files.createFile(stagingDir.resolve("job-1"));
+        when(importJobRepository.findByStatusIn(any())).thenReturn(List.of(job));
+        when(importJobRepository.claim(eq("job-1"), eq("node-1"), anyString(), any(), any())).thenReturn(true);
+        when(fileStorage.resolve("job-1")).thenReturn(stagedFile);
+
+        // when
+        recovery.recover();
+
+        // then
+        verify(importScheduler).submit(eq("2026-01"), any());
+        verify(importProcessor, never()).abandon(any(), any(), anyString());
+        assertThat(job.getOwnerId()).isEqualTo("node-1");
+    }
+
+    @Test
+    void shouldReadOnlyJobsWithExpiredLeaseWhenRecoveringPeriodically() {
+        // given
+        when(importJobRepository.findByStatusInAndLeaseExpiresAtBefore(any(), any())).thenReturn(List.of());
+
+        // when
+        recovery.recoverExpired();
+
+        // then
+        verify(importJobRepository).findByStatusInAndLeaseExpiresAtBefore(
+                eq(List.of(ImportStatus.RECEIVED, ImportStatus.PROCESSING)), any());
+        verify(importJobRepository, never()).findByStatusIn(any());
+    }
+
+    private static ImportJobDocument job(String id, String ownerId) {
+        return ImportJobDocument.builder()
+                .id(id)
+                .yearMonth("2026-01")
+                .status(ImportStatus.PROCESSING)
+                .ownerId(ownerId)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.TransactionStatsDocument;
+import com.marcinpypec.banktransactions.stats.TransactionStatsMaterializer;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PendingStatsTest {
+
+    private static final Set<StatsGroupBy> ALL = EnumSet.allOf(StatsGroupBy.class);
+
+    private final TransactionStatsMaterializer materializer = mock(TransactionStatsMaterializer.class);
+
+    @Test
+    void shouldMergeDeltasOfAllImportsIntoOneUpdate() {
+        // given
+        PendingStats pending = new PendingStats();
+        pending.addDelta("job-1", delta("-10.00"), 1);
+        pending.addDelta("job-2", delta("-5.50"), 3);
+        pending.addAggregation("job-3", 2);
+
+        // when
+        pending.applyIncrements("2026-01", ALL, materializer);
+
+        // then
+        ArgumentCaptor<StatsAccumulator> merged = ArgumentCaptor.forClass(StatsAccumulator.class);
+        verify(materializer).applyDelta(eq("2026-01"), merged.capture());
+        TransactionStatsDocument month = merged.getValue().toDeltas("2026-01").stream()
+                .filter(d -> d.getGroupBy().equals(StatsGroupBy.MONTH.name()))
+                .findFirst().orElseThrow();
+        assertThat(month.getCount()).isEqualTo(2);
+        assertThat(month.getTotalAmount()).isEqualByComparingTo("-15.50");
+        verify(materializer).applyImport("2026-01", "job-3");
+        assertThat(pending.revision()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldDropImportsCoveredByRebuild() {
+        // given
+        PendingStats pending = new PendingStats();
+        pending.addDelta("job-1", delta("-10.00"), 1);
+        pending.addAggregation("job-2", 2);
+        pending.requestRebuild(2);
+
+        // when
+        pending.dropCovered(List.of("job-1", "job-2"));
+        pending.applyIncrements("2026-01", ALL, materializer);
+
+        // then
+        assertThat(pending.isRebuild()).isTrue();
+        verify(materializer, never()).applyDelta(anyString(), any());
+        verify(materializer, never()).applyImport(anyString(), anyString());
+    }
+
+    @Test
+    void shouldAggregateImportWhoseDeltaMissesMaterializedGroupBy() {
+        // given
+        PendingStats pending = new PendingStats();
+        pending.addDelta("job-1", delta("-10.00", Set.of(StatsGroupBy.CATEGORY)), 1);
+        pending.addDelta("job-2", delta("-5.50", ALL), 2);
+
+        // when
+        pending.applyIncrements("2026-01", ALL, materializer);
+
+        // then
+        ArgumentCaptor<StatsAccumulator> merged = ArgumentCaptor.forClass(StatsAccumulator.class);
+        verify(materializer).applyDelta(eq("2026-01"), merged.capture());
+        assertThat(merged.getValue().covers(ALL)).isTrue();
+        verify(materializer).applyImport("2026-01", "job-1");
+    }
+
+    @Test
+    void shouldRebuildWithRequestedGroupByAndReleaseWaiters() {
+        // given
+        PendingStats pending = new PendingStats();
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        Set<StatsGroupBy> materialized = EnumSet.of(StatsGroupBy.MONTH, StatsGroupBy.CATEGORY);
+        pending.requestGroupBy(StatsGroupBy.IBAN, waiter);
+
+        // when
+        boolean rebuild = pending.needsRebuild(materialized);
+        Set<StatsGroupBy> groupBys = pending.groupBysAfterRebuild(materialized);
+        pending.complete();
+
+        // then
+        assertThat(rebuild).isTrue();
+        assertThat(groupBys).containsExactlyInAnyOrder(StatsGroupBy.MONTH, StatsGroupBy.CATEGORY, StatsGroupBy.IBAN);
+        assertThat(pending.needsRebuild(groupBys)).isFalse();
+        assertThat(waiter).isCompleted();
+    }
+
+    private static StatsAccumulator delta(String amount) {
+        return delta(amount, ALL);
+    }
+
+    private static StatsAccumulator delta(String amount, Set<StatsGroupBy> groupBys) {
+        StatsAccumulator stats = new StatsAccumulator(groupBys);
+        TransactionDocument doc = new TransactionDocument();
+        doc.setIban("PL61109010140000071219812874");
+        doc.setCategory("Food");
+        doc.setCurrency("PLN");
+        doc.setAmount(new BigDecimal(amount));
+        stats.add(doc);
+        return stats;
+    }
+}
@@ -0,0 +1,38 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelinedBatchSinkTest {
+
+    @Test
+    void shouldRethrowWriterErrorToParser() {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer timer = registry.timer("wait");
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(new ImportProperties.Batching(
+                10, 1, 100, DataSize.ofMegabytes(16), Duration.ofSeconds(2)));
+        PipelinedBatchSink sink = new PipelinedBatchSink("job-1", docs -> {
+            throw new OutOfMemoryError("writer");
+        }, sizer, 1, 1, timer, timer, s -> {});
+        List<TransactionDocument> batch = List.of(new TransactionDocument());
+
+        // when / then
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 100; i++) {
+                sink.accept(batch, () -> {});
+            }
+            sink.finish();
+        }).isInstanceOf(OutOfMemoryError.class);
+        sink.close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.transactions.BatchWriteResult;
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryingBatchWriterTest {
+
+    private final ImportProperties.WriteRetry retry =
+            new ImportProperties.WriteRetry(3, Duration.ofMillis(1), Duration.ofMillis(4));
+    private final Counter retries = new SimpleMeterRegistry().counter("retries");
+    private final List<TransactionDocument> batch = List.of(new TransactionDocument());
+
+    @Test
+    void shouldRetryTransientFailureUntilWriteSucceeds() {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+        RetryingBatchWriter writer = new RetryingBatchWriter(docs -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new MongoSocketReadException("connection reset", new ServerAddress());
+            }
+            return new BatchWriteResult(0, docs.size());
+        }, retry, retries);
+
+        // when
+        BatchWriteResult result = writer.apply(batch);
+
+        // then
+        assertThat(calls).hasValue(3);
+        assertThat(result.alreadyWritten()).isEqualTo(1);
+        assertThat(retries.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+        RetryingBatchWriter writer = new RetryingBatchWriter(docs -> {
+            calls.incrementAndGet();
+            throw new MongoSocketReadException("connection reset", new ServerAddress());
+        }, retry, retries);
+
+        // when / then
+        assertThatThrownBy(() -> writer.apply(batch)).isInstanceOf(MongoSocketReadException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void shouldNotRetryPermanentFailure() {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+        RetryingBatchWriter writer = new RetryingBatchWriter(docs -> {
+            calls.incrementAndGet();
+            throw new DuplicateKeyException("E11000");
+        }, retry, retries);
+
+        // when / then
+        assertThatThrownBy(() -> writer.apply(batch)).isInstanceOf(DuplicateKeyException.class);
+        assertThat(calls).hasValue(1);
+    }
+}
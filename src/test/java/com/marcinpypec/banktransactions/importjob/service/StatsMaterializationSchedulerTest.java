@@ -0,0 +1,130 @@
+package com.marcinpypec.banktransactions.importjob.service;
+
+import com.marcinpypec.banktransactions.importjob.repository.ImportJobRepository;
+import com.marcinpypec.banktransactions.stats.StatsAccumulator;
+import com.marcinpypec.banktransactions.stats.StatsGroupBy;
+import com.marcinpypec.banktransactions.stats.StatsLock;
+import com.marcinpypec.banktransactions.stats.StatsMonths;
+import com.marcinpypec.banktransactions.stats.StatsProperties;
+import com.marcinpypec.banktransactions.stats.TransactionStatsMaterializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsMaterializationSchedulerTest {
+
+    private final TransactionStatsMaterializer materializer = mock(TransactionStatsMaterializer.class);
+    private final StatsMonths statsMonths = mock(StatsMonths.class);
+    private final StatsLock statsLock = mock(StatsLock.class);
+    private final StatsProperties properties = new StatsProperties(Duration.ofMinutes(10), Duration.ofMinutes(5),
+            new StatsProperties.Materialization(1, Duration.ZERO, Duration.ofSeconds(30), Duration.ofMinutes(15)),
+            new StatsProperties.OnDemand(Set.of(StatsGroupBy.IBAN), Duration.ofMillis(100), Duration.ofSeconds(10)),
+            new StatsProperties.Cache(1_000, Duration.ofMillis(250)),
+            new StatsProperties.Streaming(1_000));
+    private final StatsMaterializationScheduler scheduler = new StatsMaterializationScheduler(materializer, statsMonths,
+            statsLock, mock(ImportJobRepository.class), properties, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void runLocked() {
+        when(statsLock.tryRunLocked(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void shouldSkipDeltaOfImportTheActiveGenerationWasRebuiltFrom() {
+        // given
+        when(statsMonths.materialized("2026-01")).thenReturn(EnumSet.allOf(StatsGroupBy.class));
+        when(statsMonths.rebuiltFrom("2026-01")).thenReturn(Set.of("job-1"));
+
+        // when
+        scheduler.applyDelta("2026-01", 2, "job-1", new StatsAccumulator());
+
+        // then
+        verify(statsMonths, timeout(5_000)).markFresh("2026-01", 2);
+        verify(materializer, never()).applyDelta(anyString(), any());
+    }
+
+    @Test
+    void shouldLeaveMonthLockedByAnotherInstanceForLater() {
+        // given
+        doReturn(false).when(statsLock).tryRunLocked(anyString(), any());
+
+        // when
+        scheduler.applyDelta("2026-01", 2, "job-1", new StatsAccumulator());
+
+        // then
+        verify(statsLock, timeout(5_000).atLeastOnce()).tryRunLocked(eq("month:2026-01"), any());
+        verify(statsMonths, never()).markFresh(anyString(), anyLong());
+        verify(materializer, never()).applyDelta(anyString(), any());
+    }
+
+    @Test
+    void shouldRebuildMonthWhenDeltaLandedOnSupersededGeneration() {
+        // given
+        when(statsMonths.materialized("2026-01")).thenReturn(EnumSet.allOf(StatsGroupBy.class));
+        when(materializer.applyDelta(anyString(), any())).thenReturn(false);
+
+        // when
+        scheduler.applyDelta("2026-01", 2, "job-1", new StatsAccumulator());
+
+        // then
+        verify(materializer, timeout(5_000)).materializeForMonth("2026-01", List.of(), EnumSet.allOf(StatsGroupBy.class));
+        verify(statsMonths, timeout(5_000)).markFresh("2026-01", 2);
+    }
+
+    @Test
+    void shouldRunGroupByRequestedDuringAnotherRunWithoutDebounce() throws Exception {
+        // given
+        StatsMaterializationScheduler scheduler = new StatsMaterializationScheduler(materializer, statsMonths,
+                statsLock, mock(ImportJobRepository.class), new StatsProperties(Duration.ofMinutes(10), Duration.ofMinutes(5),
+                new StatsProperties.Materialization(1, Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofMinutes(15)),
+                properties.onDemand(), properties.cache(), properties.streaming()), new SimpleMeterRegistry());
+        when(statsMonths.materialized("2026-01")).thenReturn(EnumSet.of(StatsGroupBy.MONTH));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            running.countDown();
+            release.await();
+            return null;
+        }).doNothing().when(materializer).rollUp("2026-01");
+        CompletableFuture<Void> first = scheduler.materialize("2026-01", StatsGroupBy.IBAN);
+        running.await(5, TimeUnit.SECONDS);
+
+        // when
+        CompletableFuture<Void> second = scheduler.materialize("2026-01", StatsGroupBy.CATEGORY);
+        release.countDown();
+
+        // then
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,124 @@
+package com.marcinpypec.banktransactions.importjob.storage;
+
+import com.github.luben.zstd.Zstd;
+import com.marcinpypec.banktransactions.importjob.config.ImportProperties;
+import com.marcinpypec.banktransactions.importjob.exception.ImportFileReadException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportFileStorageTest {
+
+    private static final byte[] CSV = """
+            iban,date,currency,category,amount
+            PL61109010140000071219812874,2026-01-05,PLN,Food,-12.50
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path stagingDir;
+
+    @Test
+    void shouldStagePlainUploadAsIs() throws IOException {
+        // given
+        ImportFileStorage storage = storage(DataSize.ofMegabytes(1));
+
+        // when
+        StagedUpload upload = storage.stage("job-1", upload(CSV), null);
+
+        // then
+        assertThat(Files.readAllBytes(upload.path())).isEqualTo(CSV);
+    }
+
+    @Test
+    void shouldDecompressGzipRecognisedByContent() throws IOException {
+        // given
+        ImportFileStorage storage = storage(DataSize.ofMegabytes(1));
+        String plainSha256 = storage.stage("job-1", upload(CSV), null).sha256();
+
+        // when
+        StagedUpload upload = storage.stage("job-2", upload(gzip(CSV)), null);
+
+        // then
+        assertThat(Files.readAllBytes(upload.path())).isEqualTo(CSV);
+        assertThat(upload.sha256()).isEqualTo(plainSha256);
+    }
+
+    @Test
+    void shouldDecompressZstdRecognisedByContent() throws IOException {
+        // given
+        ImportFileStorage storage = storage(DataSize.ofMegabytes(1));
+
+        // when
+        StagedUpload upload = storage.stage("job-1", upload(Zstd.compress(CSV)), null);
+
+        // then
+        assertThat(Files.readAllBytes(upload.path())).isEqualTo(CSV);
+    }
+
+    @Test
+    void shouldFollowDeclaredEncoding() {
+        // given
+        ImportFileStorage storage = storage(DataSize.ofMegabytes(1));
+
+        // when / then
+        assertThatThrownBy(() -> storage.stage("job-1", upload(CSV), UploadEncoding.GZIP))
+                .isInstanceOf(ImportFileReadException.class);
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldParseContentEncodingIndependentlyOfDefaultLocale() {
+        // given
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+
+        // when / then
+        try {
+            assertThat(UploadEncoding.fromContentEncoding("GZIP")).isEqualTo(UploadEncoding.GZIP);
+            assertThat(UploadEncoding.fromContentEncoding("IDENTITY")).isEqualTo(UploadEncoding.IDENTITY);
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void shouldRejectUploadInflatingBeyondLimit() throws IOException {
+        // given
+        ImportFileStorage storage = storage(DataSize.ofBytes(CSV.length - 1));
+
+        // when / then
+        assertThatThrownBy(() -> storage.stage("job-1", upload(gzip(CSV)), null))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        assertThat(stagingDir).isEmptyDirectory();
+    }
+
+    private ImportFileStorage storage(DataSize maxStagedSize) {
+        return new ImportFileStorage(new ImportProperties(stagingDir, maxStagedSize,
+                null, null, null, null, null, null, null, null, null, null));
+    }
+
+    private static MockMultipartFile upload(byte[] content) {
+        return new MockMultipartFile("file", "transactions.csv", "text/csv", content);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
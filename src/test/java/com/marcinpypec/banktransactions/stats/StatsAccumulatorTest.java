@@ -0,0 +1,90 @@
+package com.marcinpypec.banktransactions.stats;
+
+import com.marcinpypec.banktransactions.transactions.TransactionDocument;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsAccumulatorTest {
+
+    @Test
+    void shouldSumPerGroupKeyAndCurrency() {
+        // given
+        StatsAccumulator stats = new StatsAccumulator();
+
+        // when
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "-10.50"));
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "-4.25"));
+        stats.add(doc("DE89370400440532013000", "Food", "EUR", "-3.00"));
+        stats.add(doc("DE89370400440532013000", "Salary", "PLN", "1000.00"));
+        List<TransactionStatsDocument> deltas = stats.toDeltas("2026-01");
+
+        // then
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Food", "PLN").getCount()).isEqualTo(2);
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Food", "PLN").getTotalAmount()).isEqualByComparingTo("-14.75");
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Food", "EUR").getCount()).isEqualTo(1);
+        assertThat(find(deltas, StatsGroupBy.IBAN, "DE89370400440532013000", "PLN").getTotalAmount())
+                .isEqualByComparingTo("1000.00");
+        assertThat(find(deltas, StatsGroupBy.MONTH, "TOTAL", "PLN").getCount()).isEqualTo(3);
+        assertThat(find(deltas, StatsGroupBy.MONTH, "TOTAL", "PLN").getTotalAmount()).isEqualByComparingTo("985.25");
+        assertThat(deltas).allSatisfy(delta -> assertThat(delta.getYearMonth()).isEqualTo("2026-01"));
+    }
+
+    @Test
+    void shouldKeepExactSumAcrossScalesAndLargeValues() {
+        // given
+        StatsAccumulator stats = new StatsAccumulator();
+
+        // when
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "0.10"));
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "0.2"));
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "92233720368547758.07"));
+        stats.add(doc("PL61109010140000071219812874", "Food", "PLN", "92233720368547758.07"));
+
+        // then
+        assertThat(find(stats.toDeltas("2026-01"), StatsGroupBy.MONTH, "TOTAL", "PLN").getTotalAmount())
+                .isEqualByComparingTo("184467440737095516.44");
+    }
+
+    @Test
+    void shouldMergeReaderPartials() {
+        // given
+        StatsAccumulator first = new StatsAccumulator();
+        first.add(doc("PL61109010140000071219812874", "Food", "PLN", "-10.00"));
+        StatsAccumulator second = new StatsAccumulator();
+        second.add(doc("PL61109010140000071219812874", "Food", "PLN", "-5.00"));
+        second.add(doc("PL61109010140000071219812874", "Rent", "PLN", "-2000.00"));
+
+        // when
+        first.merge(second);
+        List<TransactionStatsDocument> deltas = first.toDeltas("2026-01");
+
+        // then
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Food", "PLN").getCount()).isEqualTo(2);
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Food", "PLN").getTotalAmount()).isEqualByComparingTo("-15.00");
+        assertThat(find(deltas, StatsGroupBy.CATEGORY, "Rent", "PLN").getCount()).isEqualTo(1);
+        assertThat(find(deltas, StatsGroupBy.IBAN, "PL61109010140000071219812874", "PLN").getCount()).isEqualTo(3);
+    }
+
+    private static TransactionDocument doc(String iban, String category, String currency, String amount) {
+        TransactionDocument doc = new TransactionDocument();
+        doc.setIban(iban);
+        doc.setCategory(category);
+        doc.setCurrency(currency);
+        doc.setAmount(new BigDecimal(amount));
+        return doc;
+    }
+
+    private static TransactionStatsDocument find(List<TransactionStatsDocument> deltas, StatsGroupBy groupBy,
+                                                 String key, String currency) {
+        return deltas.stream()
+                .filter(delta -> delta.getGroupBy().equals(groupBy.name())
+                        && delta.getKey().equals(key)
+                        && delta.getCurrency().equals(currency))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,143 @@
+package com.marcinpypec.banktransactions.stats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatsMonths statsMonths = mock(StatsMonths.class);
+    private final StatsCache cache = new StatsCache(statsMonths, new StatsProperties(Duration.ofMinutes(1),
+            Duration.ofMinutes(1), null, new StatsProperties.OnDemand(null, Duration.ofSeconds(1), Duration.ofSeconds(1)),
+            new StatsProperties.Cache(1_000, Duration.ofMinutes(1)), new StatsProperties.Streaming(1_000)), meterRegistry);
+
+    @Test
+    void shouldReloadRangeOnlyWhenMonthInsideItChanges() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<MonthlyStatsRow>> loader = () -> {
+            loads.incrementAndGet();
+            return List.of(new MonthlyStatsRow("2026-02", "PLN", 1, BigDecimal.ONE, StatsStatus.FRESH, null));
+        };
+        when(statsMonths.findStates()).thenReturn(List.of(month("2026-02", 1), month("2026-04", 1)));
+        cache.refresh();
+        cache.monthly("2026-01", "2026-03", loader);
+
+        // when
+        when(statsMonths.findStates()).thenReturn(List.of(month("2026-02", 1), month("2026-04", 2)));
+        cache.refresh();
+        cache.monthly("2026-01", "2026-03", loader);
+
+        // then
+        assertThat(loads).hasValue(1);
+        verify(statsMonths, never()).find(anyString(), anyString());
+
+        // when
+        when(statsMonths.findStates()).thenReturn(List.of(month("2026-02", 2), month("2026-04", 2)));
+        cache.refresh();
+        cache.monthly("2026-01", "2026-03", loader);
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldNotServeResultLoadedAcrossWrite() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        when(statsMonths.findStates()).thenReturn(List.of(month("2026-01", 1)));
+        cache.refresh();
+        Supplier<List<MonthlyStatsRow>> writeDuringLoad = () -> {
+            if (loads.incrementAndGet() == 1) {
+                when(statsMonths.findStates()).thenReturn(List.of(month("2026-01", 2)));
+                cache.refresh();
+            }
+            return List.of();
+        };
+
+        // when
+        cache.monthly("2026-01", "2026-01", writeDuringLoad);
+        cache.monthly("2026-01", "2026-01", writeDuringLoad);
+        cache.monthly("2026-01", "2026-01", writeDuringLoad);
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldReloadMonthChangedByThisInstanceBeforeNextRefresh() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<MonthlyStatsRow>> loader = () -> {
+            loads.incrementAndGet();
+            return List.of();
+        };
+        when(statsMonths.findStates()).thenReturn(List.of(month("2026-01", 1)));
+        cache.refresh();
+        cache.monthly("2026-01", "2026-01", loader);
+        when(statsMonths.find("2026-01")).thenReturn(Optional.of(month("2026-01", 2)));
+
+        // when
+        cache.onMonthChanged(new StatsMonthChanged("2026-01"));
+        cache.refresh();
+        cache.monthly("2026-01", "2026-01", loader);
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldBypassCacheUntilMonthStatesAreRead() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<List<MonthlyStatsRow>> loader = () -> {
+            loads.incrementAndGet();
+            return List.of();
+        };
+
+        // when
+        cache.monthly("2026-01", "2026-01", loader);
+        cache.monthly("2026-01", "2026-01", loader);
+
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldExposeHitAndMissCounts() {
+        // given
+        when(statsMonths.findStates()).thenReturn(List.of());
+        cache.refresh();
+        cache.monthly("2026-01", "2026-01", List::of);
+
+        // when
+        cache.monthly("2026-01", "2026-01", List::of);
+
+        // then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "stats").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "stats").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+    }
+
+    private static StatsMonthDocument month(String yearMonth, long statsEpoch) {
+        return StatsMonthDocument.builder()
+                .yearMonth(yearMonth)
+                .statsEpoch(statsEpoch)
+                .build();
+    }
+}
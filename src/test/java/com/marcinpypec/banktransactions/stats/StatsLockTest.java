@@ -0,0 +1,63 @@
+package com.marcinpypec.banktransactions.stats;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StatsLockTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StatsLock lock = new StatsLock(mongoTemplate);
+
+    @AfterEach
+    void shutdown() {
+        lock.shutdown();
+    }
+
+    @Test
+    void shouldWaitWhileAnotherInstanceHoldsTheLock() {
+        // given
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq("stats_locks")))
+                .thenThrow(new DuplicateKeyException("held"))
+                .thenReturn(null);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // when
+        lock.runLocked("rollups:2026", () -> ran.set(true));
+
+        // then
+        assertThat(ran).isTrue();
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), any(Update.class), eq("stats_locks"));
+        verify(mongoTemplate).remove(any(Query.class), eq("stats_locks"));
+    }
+
+    @Test
+    void shouldNotRunWhenAnotherInstanceHoldsTheLock() {
+        // given
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq("stats_locks")))
+                .thenThrow(new DuplicateKeyException("held"));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // when
+        boolean locked = lock.tryRunLocked("month:2026-01", () -> ran.set(true));
+
+        // then
+        assertThat(locked).isFalse();
+        assertThat(ran).isFalse();
+        verify(mongoTemplate, never()).remove(any(Query.class), eq("stats_locks"));
+    }
+}
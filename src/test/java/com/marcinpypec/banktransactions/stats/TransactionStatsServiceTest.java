@@ -0,0 +1,256 @@
+package com.marcinpypec.banktransactions.stats;
+
+import com.marcinpypec.banktransactions.api.StatsSort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class TransactionStatsServiceTest {
+
+    private final TransactionStatsRepository statsRepository = mock(TransactionStatsRepository.class);
+    private final StatsMonths statsMonths = mock(StatsMonths.class);
+    private final GroupByMaterializer groupByMaterializer = mock(GroupByMaterializer.class);
+    private final StatsProperties properties = new StatsProperties(Duration.ofMinutes(10), Duration.ofMinutes(5),
+            new StatsProperties.Materialization(1, Duration.ZERO, Duration.ofSeconds(30), Duration.ofMinutes(15)),
+            new StatsProperties.OnDemand(Set.of(StatsGroupBy.IBAN), Duration.ofMillis(100), Duration.ofSeconds(10)),
+            new StatsProperties.Cache(1_000, Duration.ofMillis(250)),
+            new StatsProperties.Streaming(1_000));
+    private final StatsCache statsCache = new StatsCache(statsMonths, properties, new SimpleMeterRegistry());
+    private final StatsRollupRepository rollupRepository = mock(StatsRollupRepository.class);
+    private final TransactionStatsService service = new TransactionStatsService(statsRepository, statsMonths,
+            groupByMaterializer, properties, statsCache, rollupRepository);
+
+    @Test
+    void shouldReturnOnlyActiveGenerationOfEachMonth() {
+        // given
+        when(statsMonths.find("2026-01", "2026-03")).thenReturn(Map.of("2026-02", StatsMonthDocument.builder()
+                .yearMonth("2026-02")
+                .activeVersion(3)
+                .statsStatus(StatsStatus.STALE)
+                .build()));
+        when(statsRepository.findGenerations("MONTH", "2026-01", "2026-03", Map.of("2026-02", 3L)))
+                .thenReturn(List.of(
+                        month("2026-01", 0, 10),
+                        month("2026-02", 3, 30),
+                        month("2026-03", 0, 40)));
+
+        // when
+        List<MonthlyStatsRow> rows = service.getMonthlyStats("2026-01", "2026-03");
+
+        // then
+        assertThat(rows).extracting(MonthlyStatsRow::yearMonth).containsExactly("2026-01", "2026-02", "2026-03");
+        assertThat(rows).extracting(MonthlyStatsRow::count).containsExactly(10L, 30L, 40L);
+        assertThat(rows).extracting(MonthlyStatsRow::statsStatus)
+                .containsExactly(StatsStatus.FRESH, StatsStatus.STALE, StatsStatus.FRESH);
+    }
+
+    @Test
+    void shouldServeRepeatedQueryFromCacheUntilMonthChanges() {
+        // given
+        when(statsMonths.generation("2026-01")).thenReturn(new StatsGeneration(1, EnumSet.allOf(StatsGroupBy.class)));
+        when(statsMonths.findStates()).thenReturn(List.of());
+        statsCache.refresh();
+        service.getStats("2026-01", StatsGroupBy.CATEGORY, 10, StatsSort.TOTAL_DESC, null);
+
+        // when
+        service.getStats("2026-01", StatsGroupBy.CATEGORY, 10, StatsSort.TOTAL_DESC, null);
+
+        // then
+        verify(statsRepository, times(1)).findPage(any(), anyLong(), any(), any(), any(), anyInt());
+
+        // when
+        when(statsMonths.find("2026-01")).thenReturn(Optional.of(StatsMonthDocument.builder()
+                .yearMonth("2026-01")
+                .statsEpoch(1)
+                .build()));
+        statsCache.onMonthChanged(new StatsMonthChanged("2026-01"));
+        service.getStats("2026-01", StatsGroupBy.CATEGORY, 10, StatsSort.TOTAL_DESC, null);
+
+        // then
+        verify(statsRepository, times(2)).findPage(any(), anyLong(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldKeepCauseOfCorruptCursor() {
+        // when / then
+        assertThatThrownBy(() -> StatsCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("cursor is invalid")
+                .hasCauseInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void shouldContinueAfterLastRowOfPreviousPage() {
+        // given
+        when(statsMonths.generation("2026-01")).thenReturn(new StatsGeneration(1, EnumSet.allOf(StatsGroupBy.class)));
+        when(statsRepository.findPage("2026-01", 1L, "CATEGORY", Sort.Direction.DESC, null, 3))
+                .thenReturn(List.of(row("Salary", "5000.00"), row("Groceries", "-250.00"), row("Rent", "-2000.00")));
+
+        // when
+        StatsPage first = service.getStats("2026-01", StatsGroupBy.CATEGORY, 2, StatsSort.TOTAL_DESC, null);
+        service.getStats("2026-01", StatsGroupBy.CATEGORY, 2, StatsSort.TOTAL_DESC, first.nextCursor());
+
+        // then
+        assertThat(first.rows()).extracting(TransactionStatsRow::key).containsExactly("Salary", "Groceries");
+        verify(statsRepository).findPage("2026-01", 1L, "CATEGORY", Sort.Direction.DESC,
+                new StatsCursor("2026-01", StatsGroupBy.CATEGORY, StatsSort.TOTAL_DESC, new BigDecimal("-250.00"), "Groceries", "PLN"),
+                3);
+    }
+
+    @Test
+    void shouldRejectCursorOfAnotherQuery() {
+        // given
+        String cursor = new StatsCursor("2026-01", StatsGroupBy.CATEGORY, StatsSort.TOTAL_DESC, BigDecimal.ONE, "Rent", "PLN")
+                .encode();
+
+        // when / then
+        assertThatThrownBy(() -> service.getStats("2026-02", StatsGroupBy.CATEGORY, 2, StatsSort.TOTAL_DESC, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldMaterializeOnDemandGroupByBeforeReadingIt() {
+        // given
+        when(statsMonths.generation("2026-01")).thenReturn(
+                new StatsGeneration(1, EnumSet.of(StatsGroupBy.MONTH, StatsGroupBy.CATEGORY)),
+                new StatsGeneration(2, EnumSet.allOf(StatsGroupBy.class)));
+        when(groupByMaterializer.materialize("2026-01", StatsGroupBy.IBAN))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        service.getStats("2026-01", StatsGroupBy.IBAN, 10, StatsSort.TOTAL_DESC, null);
+
+        // then
+        verify(statsRepository).findPage("2026-01", 2L, "IBAN", Sort.Direction.DESC, null, 11);
+    }
+
+    @Test
+    void shouldNotMaterializeGroupByTheMonthAlreadyHolds() {
+        // given
+        when(statsMonths.generation("2026-01")).thenReturn(new StatsGeneration(1, EnumSet.allOf(StatsGroupBy.class)));
+
+        // when
+        service.getStats("2026-01", StatsGroupBy.IBAN, 10, StatsSort.TOTAL_DESC, null);
+
+        // then
+        verifyNoInteractions(groupByMaterializer);
+        verify(statsRepository).findPage("2026-01", 1L, "IBAN", Sort.Direction.DESC, null, 11);
+    }
+
+    @Test
+    void shouldReportNotReadyWhenMaterializationTakesTooLong() {
+        // given
+        when(statsMonths.generation("2026-01")).thenReturn(new StatsGeneration(1, EnumSet.of(StatsGroupBy.MONTH)));
+        when(groupByMaterializer.materialize("2026-01", StatsGroupBy.IBAN)).thenReturn(new CompletableFuture<>());
+
+        // when / then
+        assertThatThrownBy(() -> service.getStats("2026-01", StatsGroupBy.IBAN, 10, StatsSort.TOTAL_DESC, null))
+                .isInstanceOfSatisfying(StatsNotReadyException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void shouldComposePartialYearFromQuartersAndMonths() {
+        // given
+        when(rollupRepository.findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(
+                StatsPeriod.YEAR, "MONTH", "2025-11", "2027-12"))
+                .thenReturn(List.of(rollup(StatsPeriod.YEAR, "2026", "2026-01", "2026-12", 100),
+                        rollup(StatsPeriod.YEAR, "2027", "2027-01", "2027-12", 200)));
+        when(rollupRepository.findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(
+                StatsPeriod.QUARTER, "MONTH", "2025-11", "2025-12"))
+                .thenReturn(List.of());
+        when(statsMonths.find("2025-11", "2025-12")).thenReturn(Map.of());
+        when(statsRepository.findGenerations("MONTH", "2025-11", "2025-12", Map.of()))
+                .thenReturn(List.of(month("2025-11", 0, 5), month("2025-12", 0, 7)));
+
+        // when
+        List<RollupStatsRow> rows = service.getRollups("2025-11", "2027-12", StatsPeriod.YEAR, StatsGroupBy.MONTH);
+
+        // then
+        assertThat(rows).extracting(RollupStatsRow::period).containsExactly("2025", "2026", "2027");
+        assertThat(rows).extracting(RollupStatsRow::count).containsExactly(12L, 100L, 200L);
+        assertThat(rows.getFirst().fromMonth()).isEqualTo("2025-11");
+    }
+
+    @Test
+    void shouldUseQuarterRollupsInsidePartialYear() {
+        // given
+        when(rollupRepository.findByLevelAndGroupByAndFromMonthGreaterThanEqualAndToMonthLessThanEqual(
+                StatsPeriod.QUARTER, "MONTH", "2026-01", "2026-08"))
+                .thenReturn(List.of(rollup(StatsPeriod.QUARTER, "2026-Q1", "2026-01", "2026-03", 30),
+                        rollup(StatsPeriod.QUARTER, "2026-Q2", "2026-04", "2026-06", 60)));
+        when(statsMonths.find("2026-01", "2026-08")).thenReturn(Map.of());
+        when(statsRepository.findGenerations("MONTH", "2026-01", "2026-08", Map.of()))
+                .thenReturn(List.of(month("2026-02", 0, 1000), month("2026-07", 0, 7), month("2026-08", 0, 8)));
+
+        // when
+        List<RollupStatsRow> rows = service.getRollups("2026-01", "2026-08", StatsPeriod.YEAR, StatsGroupBy.MONTH);
+
+        // then
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.period()).isEqualTo("2026");
+            assertThat(row.toMonth()).isEqualTo("2026-08");
+            assertThat(row.count()).isEqualTo(105L);
+        });
+    }
+
+    @Test
+    void shouldRejectRollupNotKept() {
+        // when / then
+        assertThatThrownBy(() -> service.getRollups("2026-01", "2026-12", StatsPeriod.QUARTER, StatsGroupBy.CATEGORY))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getRollups("2026-01", "2026-12", StatsPeriod.YEAR, StatsGroupBy.IBAN))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static StatsRollupDocument rollup(StatsPeriod level, String period, String fromMonth, String toMonth,
+                                              long count) {
+        return StatsRollupDocument.builder()
+                .level(level)
+                .period(period)
+                .fromMonth(fromMonth)
+                .toMonth(toMonth)
+                .groupBy("MONTH")
+                .key("TOTAL")
+                .currency("PLN")
+                .count(count)
+                .totalAmount(BigDecimal.ONE)
+                .build();
+    }
+
+    private static TransactionStatsRow row(String key, String totalAmount) {
+        return new TransactionStatsRow(key, "PLN", 1, new BigDecimal(totalAmount));
+    }
+
+    private static TransactionStatsDocument month(String yearMonth, long version, long count) {
+        return TransactionStatsDocument.builder()
+                .yearMonth(yearMonth)
+                .version(version)
+                .groupBy("MONTH")
+                .key("TOTAL")
+                .currency("PLN")
+                .count(count)
+                .totalAmount(BigDecimal.ONE)
+                .build();
+    }
+}
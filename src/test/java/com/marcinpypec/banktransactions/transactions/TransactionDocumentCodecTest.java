@@ -0,0 +1,111 @@
+package com.marcinpypec.banktransactions.transactions;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonType;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionDocumentCodecTest {
+
+    private TransactionDocumentCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new TransactionDocumentCodec();
+    }
+
+    @Test
+    void shouldEncodeFieldsLikeSpringDataMapping() {
+        // given
+        TransactionDocument doc = document();
+        codec.generateIdIfAbsentFromDocument(doc);
+
+        // when
+        BsonDocument bson = encode(doc);
+
+        // then
+        assertThat(bson.get("_id").getBsonType()).isEqualTo(BsonType.OBJECT_ID);
+        assertThat(bson.getObjectId("_id").getValue().toHexString()).isEqualTo(doc.getId());
+        assertThat(bson.getString("importJobId").getValue()).isEqualTo("job-123");
+        assertThat(bson.getString("iban").getValue()).isEqualTo("PL61109010140000071219812874");
+        assertThat(bson.getDateTime("transactionDate").getValue()).isEqualTo(
+                LocalDate.of(2026, 1, 15).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertThat(bson.getDecimal128("amount").getValue()).isEqualTo(new Decimal128(new BigDecimal("-186.47")));
+        assertThat(bson.getString("yearMonth").getValue()).isEqualTo("2026-01");
+        assertThat(bson.containsKey("_class")).isFalse();
+    }
+
+    @Test
+    void shouldRoundTripDocument() {
+        // given
+        TransactionDocument doc = document();
+        doc.setId(new ObjectId().toHexString());
+
+        // when
+        TransactionDocument decoded = codec.decode(new BsonDocumentReader(encode(doc)), DecoderContext.builder().build());
+
+        // then
+        assertThat(decoded.getId()).isEqualTo(doc.getId());
+        assertThat(decoded.getTransactionDate()).isEqualTo(LocalDate.of(2026, 1, 15));
+        assertThat(decoded.getAmount()).isEqualByComparingTo(new BigDecimal("-186.47"));
+        assertThat(decoded.getCurrency()).isEqualTo("PLN");
+        assertThat(decoded.getCategory()).isEqualTo("Groceries");
+    }
+
+    @Test
+    void shouldKeepNonObjectIdAsString() {
+        // given
+        TransactionDocument doc = document();
+        doc.setId("custom-id");
+
+        // when
+        BsonDocument bson = encode(doc);
+
+        // then
+        assertThat(bson.getString("_id").getValue()).isEqualTo("custom-id");
+        assertThat(codec.getDocumentId(doc).asString().getValue()).isEqualTo("custom-id");
+    }
+
+    @Test
+    void shouldNotOverwriteExistingId() {
+        // given
+        TransactionDocument doc = document();
+        doc.setId("custom-id");
+
+        // when
+        codec.generateIdIfAbsentFromDocument(doc);
+
+        // then
+        assertThat(doc.getId()).isEqualTo("custom-id");
+    }
+
+    private BsonDocument encode(TransactionDocument doc) {
+        BsonDocument bson = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(bson), doc, EncoderContext.builder().build());
+        return bson;
+    }
+
+    private static TransactionDocument document() {
+        TransactionDocument doc = new TransactionDocument();
+        doc.setImportJobId("job-123");
+        doc.setIban("PL61109010140000071219812874");
+        doc.setTransactionDate(LocalDate.of(2026, 1, 15));
+        doc.setCurrency("PLN");
+        doc.setCategory("Groceries");
+        doc.setAmount(new BigDecimal("-186.47"));
+        doc.setYearMonth("2026-01");
+        return doc;
+    }
+}
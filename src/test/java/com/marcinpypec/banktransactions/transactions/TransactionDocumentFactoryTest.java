@@ -33,7 +33,7 @@ class TransactionDocumentFactoryTest {
         YearMonth yearMonth = YearMonth.of(2026, 1);
 
         // when
-        TransactionDocument doc = factory.create(draft, jobId, yearMonth);
+        TransactionDocument doc = factory.create(draft, jobId, yearMonth, 0);
 
         // then
         assertThat(doc.getImportJobId()).isEqualTo("job-123");
@@ -57,7 +57,7 @@ class TransactionDocumentFactoryTest {
         );
 
         // when
-        TransactionDocument doc = factory.create(draft, "job-456", YearMonth.of(2026, 12));
+        TransactionDocument doc = factory.create(draft, "job-456", YearMonth.of(2026, 12), 0);
 
         // then
         assertThat(doc.getYearMonth()).isEqualTo("2026-12");
@@ -75,7 +75,7 @@ class TransactionDocumentFactoryTest {
         );
 
         // when
-        TransactionDocument doc = factory.create(draft, "job-789", YearMonth.of(2026, 1));
+        TransactionDocument doc = factory.create(draft, "job-789", YearMonth.of(2026, 1), 0);
 
         // then
         assertThat(doc.getAmount()).isPositive();
@@ -83,7 +83,7 @@ class TransactionDocumentFactoryTest {
     }
 
     @Test
-    void shouldNotSetId() {
+    void shouldDeriveSameIdForSameRow() {
         // given
         TransactionDraft draft = new TransactionDraft(
                 "PL61109010140000071219812874",
@@ -94,9 +94,39 @@ class TransactionDocumentFactoryTest {
         );
 
         // when
-        TransactionDocument doc = factory.create(draft, "job-123", YearMonth.of(2026, 1));
+        TransactionDocument first = factory.create(draft, "job-123", YearMonth.of(2026, 1), 7);
+        TransactionDocument replay = factory.create(draft, "job-123", YearMonth.of(2026, 1), 7);
 
-        // then - ID should be null (MongoDB will generate it)
-        assertThat(doc.getId()).isNull();
+        // then
+        assertThat(first.getId()).hasSize(32).matches("[0-9a-f]{32}");
+        assertThat(replay.getId()).isEqualTo(first.getId());
+    }
+
+    @Test
+    void shouldDeriveDifferentIdsForDifferentRows() {
+        // given
+        TransactionDraft draft = new TransactionDraft(
+                "PL61109010140000071219812874",
+                LocalDate.of(2026, 1, 15),
+                "PLN",
+                "Food",
+                BigDecimal.TEN
+        );
+        TransactionDraft otherAmount = new TransactionDraft(
+                "PL61109010140000071219812874",
+                LocalDate.of(2026, 1, 15),
+                "PLN",
+                "Food",
+                new BigDecimal("10.01")
+        );
+        YearMonth month = YearMonth.of(2026, 1);
+
+        // when
+        String id = factory.create(draft, "job-123", month, 7).getId();
+
+        // then
+        assertThat(factory.create(draft, "job-123", month, 8).getId()).isNotEqualTo(id);
+        assertThat(factory.create(draft, "job-124", month, 7).getId()).isNotEqualTo(id);
+        assertThat(factory.create(otherAmount, "job-123", month, 7).getId()).isNotEqualTo(id);
     }
 }